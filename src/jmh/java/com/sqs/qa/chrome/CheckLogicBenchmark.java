@@ -0,0 +1,142 @@
+/*
+ * com/sqs/qa/chrome/CheckLogicBenchmark.java
+ *
+ * CheckLogicBenchmark object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * <p>Benchmarks of the table and button checks over synthetic snapshots,
+ * excluding the browser round trips.</p>
+ *
+ * <p>The button checks are the loops of the left-column tests, applied to
+ * the element descriptions those tests fetch.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class CheckLogicBenchmark
+{
+	//
+	// Instance fields
+	//
+
+	/**
+	 * <p>The number of table rows, and of buttons.</p>
+	 */
+	@Param( { "10", "1000" } )
+	public int m_size;
+
+	private DomSnapshot m_snapshot;
+
+	private DomNode m_tableNode;
+
+	private List<ElementDescription> m_buttonDescriptionList;
+
+
+	//
+	// Instance methods
+	//
+
+	@Setup
+	public void setUp() {
+		m_snapshot = SyntheticPage.createSnapshot( m_size );
+		m_tableNode = m_snapshot.findElementsByTagName( "table" ).get( 0 );
+		m_buttonDescriptionList = SyntheticPage.createButtonDescriptions( m_size );
+	}
+
+	@Benchmark
+	public DomSnapshot convertSnapshot() {
+		return( SyntheticPage.createSnapshot(m_size) );
+	}
+
+	@Benchmark
+	public List<DomNode> findByClassName() {
+		return( m_snapshot.findElementsByClassName("large-10") );
+	}
+
+	@Benchmark
+	public TableModel buildTableModel() {
+		return( TableModel.of(m_tableNode) );
+	}
+
+	/**
+	 * <p>The checks of {@link TableColumn3TextTest} and
+	 * {@link TableActionLinksTest} on a freshly built model.</p>
+	 */
+	@Benchmark
+	public int tableChecks() {
+		final TableModel tableModel = TableModel.of( m_tableNode );
+		final int columnIndex = tableModel.getColumnIndex( "Sit" );
+		final int actionColumnIndex = tableModel.getColumnIndex( "Action" );
+		int result = 0;
+		for( int rowIndex = 0; rowIndex < tableModel.getRowCount(); rowIndex++ ) {
+			final int cellIndex = tableModel.getCellIndex( rowIndex, columnIndex );
+			if( tableModel.getCellText(rowIndex, cellIndex).startsWith("Definiebas") == false ) {
+				result++;
+			}
+			if( tableModel.getLinkCount(rowIndex, tableModel.getCellIndex(rowIndex, actionColumnIndex)) != 2 ) {
+				result++;
+			}
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>The checks of {@link LeftColumnButtonStringCharactersTest} and
+	 * {@link LeftColumnButtonDuplicatedStringTest}.</p>
+	 */
+	@Benchmark
+	public int buttonChecks() {
+		int result = 0;
+		final Map<String, ElementDescription> textMap = new HashMap<String, ElementDescription>();
+		for( ElementDescription buttonDescription : m_buttonDescriptionList ) {
+			final String text = buttonDescription.getText();
+			for( int i = 0; i < text.length(); i++ ) {
+				if( Character.isISOControl(text.charAt(i)) == true ) {
+					result++;
+					break;
+				}
+			}
+			if( textMap.put(text, buttonDescription) != null ) {
+				result++;
+			}
+		}
+		return( result );
+	}
+
+	@Benchmark
+	public String describeButtons() {
+		final StringBuilder sb = new StringBuilder();
+		for( ElementDescription buttonDescription : m_buttonDescriptionList ) {
+			sb.append( buttonDescription );
+		}
+		return( sb.toString() );
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * com/sqs/qa/chrome/ImageComparisonBenchmark.java
+ *
+ * ImageComparisonBenchmark object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * <p>Benchmarks of the ways of comparing a canvas capture with its
+ * reference: comparing the files byte for byte (as Guava's
+ * <code>Files.equal</code> did), hashing the capture for the
+ * {@link BaselineStore}, and comparing rasters with an
+ * {@link ImageComparator}.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ImageComparisonBenchmark
+{
+	//
+	// Constants
+	//
+
+	private static final ImageComparator IMAGE_COMPARATOR = new ImageComparator( 16, 0, true );
+
+
+	//
+	// Instance fields
+	//
+
+	private File m_captureFile;
+
+	private File m_referenceFile;
+
+	private byte[] m_capturePng;
+
+	private BufferedImage m_captureImage;
+
+	private BufferedImage m_identicalImage;
+
+	private BufferedImage m_differingImage;
+
+
+	//
+	// Instance methods
+	//
+
+	@Setup
+	public void setUp()
+	throws IOException {
+		m_capturePng = SyntheticPage.createPng( 600, 200, 0 );
+		m_captureFile = File.createTempFile( "capture", ".png" );
+		m_referenceFile = File.createTempFile( "reference", ".png" );
+		Files.write( m_captureFile.toPath(), m_capturePng );
+		Files.write( m_referenceFile.toPath(), m_capturePng );
+
+		m_captureImage = SyntheticPage.createImage( 600, 200, 0 );
+		m_identicalImage = SyntheticPage.createImage( 600, 200, 0 );
+		m_differingImage = SyntheticPage.createImage( 600, 200, 1 );
+	}
+
+	@TearDown
+	public void tearDown() {
+		m_captureFile.delete();
+		m_referenceFile.delete();
+	}
+
+	@Benchmark
+	public boolean filesEqual()
+	throws IOException {
+		return( Arrays.equals(Files.readAllBytes(m_captureFile.toPath()),
+				Files.readAllBytes(m_referenceFile.toPath())) );
+	}
+
+	@Benchmark
+	public String contentHash() {
+		return( BaselineStore.hash(m_capturePng) );
+	}
+
+	@Benchmark
+	public ImageComparison rasterIdentical() {
+		return( IMAGE_COMPARATOR.compare(m_captureImage, m_identicalImage) );
+	}
+
+	/**
+	 * <p>Images differing in a few glyphs; the zero-pixel budget makes the
+	 * comparison stop at the first real difference.</p>
+	 */
+	@Benchmark
+	public ImageComparison rasterDiffering() {
+		return( IMAGE_COMPARATOR.compare(m_captureImage, m_differingImage) );
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * com/sqs/qa/chrome/LoggingBenchmark.java
+ *
+ * LoggingBenchmark object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * <p>Benchmarks of element descriptions and message attribution.</p>
+ *
+ * <p><code>stackWalkAttribution</code> measures the stack walk that was
+ * used to find the issuing class of every message, for comparison with
+ * issuing a message with a bound source through {@link TestOutput}.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class LoggingBenchmark
+{
+	//
+	// Constants
+	//
+
+	private static final String SOURCE = LoggingBenchmark.class.getName();
+
+
+	//
+	// Instance fields
+	//
+
+	private TestOutput m_debugOutput;
+
+	private TestOutput m_errorOutput;
+
+
+	//
+	// Instance methods
+	//
+
+	/**
+	 * <p>Use fresh outputs for each iteration, so that the buffers do not
+	 * grow without bound.</p>
+	 */
+	@Setup( Level.Iteration )
+	public void setUp() {
+		m_debugOutput = new TestOutput( SOURCE, LogLevel.DEBUG );
+		m_errorOutput = new TestOutput( SOURCE, LogLevel.ERROR );
+	}
+
+	@Benchmark
+	public String elementToString() {
+		return( ChromeDriverTest.toString("a", "b1", "button alert") );
+	}
+
+	@Benchmark
+	public String stackWalkAttribution() {
+		return( getCallstackClassName(1) );
+	}
+
+	@Benchmark
+	public void boundSourceMessage() {
+		m_debugOutput.debug( SOURCE, "Button: '%s' with text '%s'", "<a#b1.button/>", "quux" );
+	}
+
+	@Benchmark
+	public boolean disabledMessage() {
+		// What ChromeDriverTest does for a filtered level
+		return( m_errorOutput.isEnabled(LogLevel.DEBUG) );
+	}
+
+	@Benchmark
+	public String formatMessage() {
+		return( new LogMessage(LogLevel.DEBUG, SOURCE, "Button: '%s' with text '%s'",
+				new Object[] { "<a#b1.button/>", "quux" }).format() );
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>The former means of attributing messages: the class name at the
+	 * specified depth of a stack trace.</p>
+	 */
+	private static String getCallstackClassName( final int depth ) {
+		String result = null;
+		try {
+			throw( new Exception() );
+		} catch( Exception exception ) {
+			final StackTraceElement[] stackTrace = exception.getStackTrace();
+			result = stackTrace[depth].getClassName();
+		}
+		return( result );
+	}
+}
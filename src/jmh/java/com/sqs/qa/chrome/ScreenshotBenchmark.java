@@ -0,0 +1,89 @@
+/*
+ * com/sqs/qa/chrome/ScreenshotBenchmark.java
+ *
+ * ScreenshotBenchmark object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * <p>Benchmarks of the screenshot path of
+ * {@link ChromeDriverTest#captureScreenshot}: decoding and cropping a
+ * full-window PNG, and encoding the cropped image.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ScreenshotBenchmark
+{
+	//
+	// Constants
+	//
+
+	/**
+	 * <p>The canvas area of the page, within a 1280x1024 window.</p>
+	 */
+	private static final Rectangle CANVAS_AREA = new Rectangle( 320, 256, 600, 200 );
+
+
+	//
+	// Instance fields
+	//
+
+	private byte[] m_screenshotPng;
+
+	private BufferedImage m_canvasImage;
+
+
+	//
+	// Instance methods
+	//
+
+	@Setup
+	public void setUp()
+	throws IOException {
+		m_screenshotPng = SyntheticPage.createPng( 1280, 1024, 0 );
+		m_canvasImage = ChromeDriverTest.decodeAndCrop( m_screenshotPng, CANVAS_AREA );
+	}
+
+	@Benchmark
+	public BufferedImage decodeAndCrop()
+	throws IOException {
+		return( ChromeDriverTest.decodeAndCrop(m_screenshotPng, CANVAS_AREA) );
+	}
+
+	@Benchmark
+	public byte[] encodeCrop()
+	throws IOException {
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		ImageIO.write( m_canvasImage, "png", outputStream );
+		return( outputStream.toByteArray() );
+	}
+}
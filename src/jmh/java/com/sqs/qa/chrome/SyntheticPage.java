@@ -0,0 +1,195 @@
+/*
+ * com/sqs/qa/chrome/SyntheticPage.java
+ *
+ * SyntheticPage object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+
+
+/**
+ * <p>Browser-free stand-ins for the page under test, shaped like the
+ * <code>challenging_dom</code> page: a <code>large-2</code> column of
+ * buttons, and a <code>large-10</code> column holding a table and a
+ * canvas.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+final class SyntheticPage
+{
+	//
+	// Constants
+	//
+
+	static final String[] HEADER_NAMES = {
+		"Lorem", "Ipsum", "Dolor", "Sit", "Amet", "Diceret", "Action"
+	};
+
+	private static final String[] BUTTON_CLASS_NAMES = {
+		"button", "button alert", "button success"
+	};
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Not instantiable.</p>
+	 */
+	private SyntheticPage() {
+		super();
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Build the script value that {@link DomSnapshot} would receive for the
+	 * page, and convert it as a capture would.</p>
+	 *
+	 * @param rowCount
+	 * The number of table rows.
+	 * @return
+	 * Returns the snapshot.
+	 */
+	static DomSnapshot createSnapshot( final int rowCount ) {
+		final List<Object> buttonValues = new ArrayList<Object>();
+		for( int i = 0; i < BUTTON_CLASS_NAMES.length; i++ ) {
+			buttonValues.add( element("a", attributes("id", "b" + i, "class", BUTTON_CLASS_NAMES[i]),
+					"button" + i, Collections.emptyList()) );
+		}
+
+		final List<Object> headerValues = new ArrayList<Object>();
+		for( String headerName : HEADER_NAMES ) {
+			headerValues.add( element("th", attributes(), headerName, Collections.emptyList()) );
+		}
+		final List<Object> rowValues = new ArrayList<Object>();
+		rowValues.add( element("tr", attributes(), "", headerValues) );
+		for( int rowIndex = 0; rowIndex < rowCount; rowIndex++ ) {
+			final List<Object> cellValues = new ArrayList<Object>();
+			for( int cellIndex = 0; cellIndex < HEADER_NAMES.length - 1; cellIndex++ ) {
+				cellValues.add( element("td", attributes(),
+						((cellIndex == 3) ? "Definiebas" : HEADER_NAMES[cellIndex]) + rowIndex,
+						Collections.emptyList()) );
+			}
+			cellValues.add( element("td", attributes(), "edit delete", Arrays.<Object>asList(
+					element("a", attributes("href", "#edit"), "edit", Collections.emptyList()),
+					element("a", attributes("href", "#delete"), "delete", Collections.emptyList()))) );
+			rowValues.add( element("tr", attributes(), "", cellValues) );
+		}
+		final Object tableValue = element( "table", attributes(), "", rowValues );
+		final Object canvasValue = element( "canvas", attributes("id", "canvas", "width", "599", "height", "200"),
+				"", Collections.emptyList() );
+
+		final Object bodyValue = element( "body", attributes(), "", Arrays.asList(
+				element("div", attributes("class", "large-2 columns"), "", buttonValues),
+				element("div", attributes("class", "large-10 columns"), "", Arrays.asList(tableValue, canvasValue))) );
+		return( new DomSnapshot(DomSnapshot.toDomNode(bodyValue)) );
+	}
+
+	/**
+	 * <p>Describe the buttons as {@link ChromeDriverTest#describe(List)}
+	 * would.</p>
+	 *
+	 * @param buttonCount
+	 * The number of buttons.
+	 * @return
+	 * Returns the descriptions.
+	 */
+	static List<ElementDescription> createButtonDescriptions( final int buttonCount ) {
+		final List<ElementDescription> result = new ArrayList<ElementDescription>();
+		for( int i = 0; i < buttonCount; i++ ) {
+			result.add( new ElementDescription("a", "b" + i, BUTTON_CLASS_NAMES[i % BUTTON_CLASS_NAMES.length],
+					"quux" + i, new Dimension(120, 40), new Point(20, 100 + 60 * i)) );
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Render a screenshot-like image, with a canvas-like area containing
+	 * text, and encode it as PNG.</p>
+	 *
+	 * @param width
+	 * The image width.
+	 * @param height
+	 * The image height.
+	 * @param seed
+	 * Varies the rendered text, so that distinct images can be made.
+	 * @return
+	 * Returns the PNG bytes.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the image cannot be encoded.
+	 */
+	static byte[] createPng( final int width, final int height, final int seed )
+	throws IOException {
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		ImageIO.write( createImage(width, height, seed), "png", outputStream );
+		return( outputStream.toByteArray() );
+	}
+
+	static BufferedImage createImage( final int width, final int height, final int seed ) {
+		final BufferedImage result = new BufferedImage( width, height, BufferedImage.TYPE_INT_ARGB );
+		final Graphics2D graphics = result.createGraphics();
+		try {
+			graphics.setRenderingHint( RenderingHints.KEY_TEXT_ANTIALIASING,
+					RenderingHints.VALUE_TEXT_ANTIALIAS_ON );
+			graphics.setColor( Color.WHITE );
+			graphics.fillRect( 0, 0, width, height );
+			graphics.setColor( new Color(0x2ba6cb) );
+			graphics.fillRect( 20, 100, 120, 40 );
+			graphics.setColor( Color.BLACK );
+			graphics.drawRect( width / 4, height / 4, width / 2, height / 4 );
+			graphics.drawString( "Answer: " + (4711 + seed), width / 4 + 20, height / 4 + 40 );
+		} finally {
+			graphics.dispose();
+		}
+		return( result );
+	}
+
+	private static Map<String, Object> element( final String tagName, final Map<String, Object> attributes,
+			final String text, final List<?> children ) {
+		final Map<String, Object> result = new HashMap<String, Object>();
+		result.put( "t", tagName );
+		result.put( "a", attributes );
+		result.put( "text", text );
+		result.put( "x", Long.valueOf(0) );
+		result.put( "y", Long.valueOf(0) );
+		result.put( "w", Double.valueOf(100.5) );
+		result.put( "h", Long.valueOf(20) );
+		result.put( "s", Collections.singletonMap("display", "block") );
+		result.put( "c", children );
+		return( result );
+	}
+
+	private static Map<String, Object> attributes( final String... namesAndValues ) {
+		final Map<String, Object> result = new HashMap<String, Object>();
+		for( int i = 0; i < namesAndValues.length; i += 2 ) {
+			result.put( namesAndValues[i], namesAndValues[i + 1] );
+		}
+		return( result );
+	}
+}
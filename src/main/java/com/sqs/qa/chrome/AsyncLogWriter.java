@@ -0,0 +1,191 @@
+/*
+ * com/sqs/qa/chrome/AsyncLogWriter.java
+ *
+ * AsyncLogWriter object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.io.PrintStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+
+/**
+ * <p>Writes {@link LogMessage}s from a single background thread.</p>
+ *
+ * <p>Messages are published from the runner thread into a bounded blocking
+ * queue; formatting and output happen on the writer thread, which blocks in
+ * {@link BlockingQueue#take()} while there is nothing to write.  If the
+ * queue is full, the producer blocks until the writer frees a slot, so no
+ * message is ever dropped.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class AsyncLogWriter
+{
+	//
+	// Constants
+	//
+
+	/**
+	 * <p>The default queue capacity.</p>
+	 */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	/**
+	 * <p>Queued by {@link #close()} to stop the writer thread once every
+	 * earlier message has been written.</p>
+	 */
+	private static final LogMessage END_OF_MESSAGES = LogMessage.line( "" );
+
+
+	//
+	// Instance fields
+	//
+
+	private final PrintStream m_printStream;
+
+	private final BlockingQueue<LogMessage> m_queue;
+
+	/**
+	 * <p>Whether {@link #close()} has been called.  Guarded by this
+	 * object, so that no message can be queued behind
+	 * {@link #END_OF_MESSAGES}.</p>
+	 */
+	private boolean m_closed;
+
+	private final Thread m_writerThread;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link AsyncLogWriter} and start its writer
+	 * thread.</p>
+	 *
+	 * @param printStream
+	 * The stream to write to.
+	 * @param capacity
+	 * The queue capacity.
+	 */
+	public AsyncLogWriter( final PrintStream printStream, final int capacity ) {
+		super();
+
+		if( printStream == null ) {
+			throw( new NullPointerException("'printStream' is null!") );
+		} else if( capacity <= 0 ) {
+			throw( new IllegalArgumentException("'capacity' is not positive: " + capacity) );
+		}
+
+		m_printStream = printStream;
+		m_queue = new ArrayBlockingQueue<LogMessage>( capacity );
+		m_writerThread = new Thread( new Runnable() {
+			@Override
+			public void run() {
+				drain();
+			}
+		}, "AsyncLogWriter" );
+		m_writerThread.setDaemon( true );
+		m_writerThread.start();
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	/**
+	 * <p>Queue a message for writing, waiting for space if the queue is
+	 * full.</p>
+	 *
+	 * @param logMessage
+	 * The message.
+	 */
+	public synchronized void publish( final LogMessage logMessage ) {
+		if( logMessage == null ) {
+			throw( new NullPointerException("'logMessage' is null!") );
+		} else if( m_closed == true ) {
+			throw( new IllegalStateException("Writer has been closed") );
+		}
+
+		put( logMessage );
+	}
+
+	/**
+	 * <p>Write all queued messages and stop the writer thread.</p>
+	 *
+	 * @throws InterruptedException
+	 * This exception is thrown if the calling thread is interrupted while
+	 * waiting for the writer.
+	 */
+	public void close()
+	throws InterruptedException {
+		synchronized( this ) {
+			if( m_closed == false ) {
+				m_closed = true;
+				put( END_OF_MESSAGES );
+			}
+		}
+		m_writerThread.join();
+	}
+
+	/**
+	 * <p>Queue a message, preserving the caller's interrupt status.</p>
+	 *
+	 * @param logMessage
+	 * The message.
+	 */
+	private void put( final LogMessage logMessage ) {
+		boolean interrupted = false;
+		while( true ) {
+			try {
+				m_queue.put( logMessage );
+				break;
+			} catch( InterruptedException interruptedException ) {
+				// Keep waiting; a dropped message would leave a hole in the log
+				interrupted = true;
+			}
+		}
+		if( interrupted == true ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * <p>Writer thread body.</p>
+	 */
+	private void drain() {
+		while( true ) {
+			LogMessage logMessage = m_queue.poll();
+			if( logMessage == null ) {
+				// Nothing pending; flush before blocking for the next message
+				m_printStream.flush();
+				try {
+					logMessage = m_queue.take();
+				} catch( InterruptedException interruptedException ) {
+					// Nobody interrupts the writer thread; keep draining
+					continue;
+				}
+			}
+			if( logMessage == END_OF_MESSAGES ) {
+				break;
+			}
+
+			String line;
+			try {
+				line = logMessage.format();
+			} catch( RuntimeException runtimeException ) {
+				// A bad format or argument must not stop the writer, or
+				// the producer would wait on the full queue forever
+				line = "Cannot format " + logMessage.getLevel() + " message: " + runtimeException;
+			}
+			m_printStream.println( line );
+		}
+		m_printStream.flush();
+	}
+}
@@ -0,0 +1,455 @@
+/*
+ * com/sqs/qa/chrome/BaselineStore.java
+ *
+ * BaselineStore object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+
+/**
+ * <p>Content-addressed store of reference images for visual tests.</p>
+ *
+ * <p>Baselines are keyed by test, element and viewport.  An index maps each
+ * key to the SHA-256 hash of the baseline's PNG bytes, and each distinct
+ * image is stored once, as <code>blobs/<i>hash</i>.png</code>, however many
+ * keys refer to it.  A capture whose bytes hash to the indexed value is
+ * identical to its baseline and is accepted without decoding any pixels.
+ * Otherwise the baseline is decoded (memory-mapping large files) and
+ * compared pixel by pixel; recently used decoded baselines are kept in an
+ * LRU cache.</p>
+ *
+ * <p>Several processes, such as the shards of a suite, may record into the
+ * same store: the index is rewritten under a file lock, merged with the
+ * entries the other processes recorded since it was loaded.  A missing
+ * baseline is only recorded by visual tests when the
+ * <code>sqs.qa.recordBaselines</code> system property is set (see
+ * {@link #isRecording()}).</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class BaselineStore
+{
+	//
+	// Constants
+	//
+
+	/**
+	 * <p>System property specifying the baseline directory.</p>
+	 */
+	private static final String BASELINE_DIRECTORY_PROPERTY = "sqs.qa.baselineDir";
+
+	/**
+	 * <p>System property selecting whether visual tests record missing
+	 * baselines rather than fail.</p>
+	 */
+	private static final String RECORD_PROPERTY = "sqs.qa.recordBaselines";
+
+	private static final String INDEX_FILENAME = "index.properties";
+
+	private static final String BLOB_DIRECTORY_NAME = "blobs";
+
+	/**
+	 * <p>The number of decoded baselines kept in memory.</p>
+	 */
+	private static final int DEFAULT_CACHE_SIZE = 32;
+
+	/**
+	 * <p>Baselines larger than this are memory-mapped rather than read.</p>
+	 */
+	private static final long MAPPED_THRESHOLD = 1024 * 1024;
+
+
+	//
+	// Class fields
+	//
+
+	private static BaselineStore ms_defaultStore;
+
+
+	//
+	// Instance fields
+	//
+
+	private final File m_directory;
+
+	/**
+	 * <p>Map from baseline key to content hash.</p>
+	 */
+	private final Properties m_index;
+
+	/**
+	 * <p>Decoded baselines by content hash, in access order.</p>
+	 */
+	private final Map<String, BufferedImage> m_decodedCache;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link BaselineStore} in the specified directory,
+	 * loading its index if present.</p>
+	 *
+	 * @param directory
+	 * The store directory.
+	 * @param cacheSize
+	 * The number of decoded baselines kept in memory.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the index cannot be read.
+	 */
+	public BaselineStore( final File directory, final int cacheSize )
+	throws IOException {
+		super();
+
+		if( directory == null ) {
+			throw( new NullPointerException("'directory' is null!") );
+		}
+
+		m_directory = directory;
+		m_index = new Properties();
+		m_decodedCache = new LinkedHashMap<String, BufferedImage>( 16, 0.75f, true ) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( final Map.Entry<String, BufferedImage> eldest ) {
+				return( size() > cacheSize );
+			}
+		};
+
+		final File indexFile = new File( directory, INDEX_FILENAME );
+		if( indexFile.exists() == true ) {
+			load( indexFile, m_index );
+		}
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	/**
+	 * <p>Determine whether a baseline exists for the specified key.</p>
+	 *
+	 * @param key
+	 * The baseline key.
+	 * @return
+	 * Returns <code>true</code> if a baseline exists.
+	 */
+	public synchronized boolean contains( final String key ) {
+		return( m_index.containsKey(key) );
+	}
+
+	/**
+	 * <p>Compare a capture with its baseline.</p>
+	 *
+	 * @param key
+	 * The baseline key.
+	 * @param capturePng
+	 * The captured PNG bytes.
+	 * @param comparator
+	 * The comparator to use if the capture is not byte-identical.
+	 * @return
+	 * Returns the comparison, or <code>null</code> if there is no baseline.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if an image cannot be read or decoded.
+	 */
+	public ImageComparison compare( final String key, final byte[] capturePng,
+			final ImageComparator comparator )
+	throws IOException {
+		final String baselineHash;
+		synchronized( this ) {
+			baselineHash = m_index.getProperty( key );
+		}
+		if( baselineHash == null ) {
+			return( null );
+		}
+
+		// Identical bytes are identical pixels; skip decoding altogether
+		if( baselineHash.equals(hash(capturePng)) == true ) {
+			return( new ImageComparison(true, 0, 0, null, false) );
+		}
+
+		final BufferedImage captureImage = decode( new ByteArrayInputStream(capturePng) );
+		final ImageComparison result = comparator.compare( captureImage, getBaseline(baselineHash) );
+		return( result );
+	}
+
+	/**
+	 * <p>Record a capture as the baseline for the specified key, replacing
+	 * any previous baseline.  The image is stored only if no other key
+	 * already refers to identical bytes.</p>
+	 *
+	 * @param key
+	 * The baseline key.
+	 * @param png
+	 * The PNG bytes.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the store cannot be written.
+	 */
+	public synchronized void record( final String key, final byte[] png )
+	throws IOException {
+		final String contentHash = hash( png );
+		final File blobFile = getBlobFile( contentHash );
+		if( blobFile.exists() == false ) {
+			writeAtomically( blobFile, png );
+		}
+
+		final File indexFile = new File( m_directory, INDEX_FILENAME );
+		final File lockFile = new File( m_directory, INDEX_FILENAME + ".lock" );
+		final FileChannel lockChannel = FileChannel.open( lockFile.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE );
+		try {
+			lockChannel.lock();
+
+			// Another process may have recorded baselines since the index was loaded
+			if( indexFile.exists() == true ) {
+				load( indexFile, m_index );
+			}
+			m_index.setProperty( key, contentHash );
+
+			final Path temporaryPath = Files.createTempFile( m_directory.toPath(), INDEX_FILENAME, ".tmp" );
+			final OutputStream outputStream = new FileOutputStream( temporaryPath.toFile() );
+			try {
+				m_index.store( outputStream, "Baseline index: key=sha256" );
+			} finally {
+				outputStream.close();
+			}
+			Files.move( temporaryPath, indexFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+		} finally {
+			// Releases the lock
+			lockChannel.close();
+		}
+	}
+
+	/**
+	 * <p>Get a decoded baseline, from the cache if possible.</p>
+	 *
+	 * @param contentHash
+	 * The content hash.
+	 * @return
+	 * Returns the decoded baseline.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the baseline cannot be read or decoded.
+	 */
+	private BufferedImage getBaseline( final String contentHash )
+	throws IOException {
+		synchronized( this ) {
+			final BufferedImage cachedImage = m_decodedCache.get( contentHash );
+			if( cachedImage != null ) {
+				return( cachedImage );
+			}
+		}
+
+		final File blobFile = getBlobFile( contentHash );
+		final BufferedImage result;
+		if( blobFile.length() > MAPPED_THRESHOLD ) {
+			final RandomAccessFile randomAccessFile = new RandomAccessFile( blobFile, "r" );
+			try {
+				final MappedByteBuffer mappedByteBuffer =
+						randomAccessFile.getChannel().map( FileChannel.MapMode.READ_ONLY, 0, blobFile.length() );
+				result = decode( new ByteBufferInputStream(mappedByteBuffer) );
+			} finally {
+				randomAccessFile.close();
+			}
+		} else {
+			result = decode( new ByteArrayInputStream(Files.readAllBytes(blobFile.toPath())) );
+		}
+
+		synchronized( this ) {
+			m_decodedCache.put( contentHash, result );
+		}
+		return( result );
+	}
+
+	private File getBlobFile( final String contentHash ) {
+		return( new File(new File(m_directory, BLOB_DIRECTORY_NAME), contentHash + ".png") );
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Get the shared default store, in the directory given by the
+	 * <code>sqs.qa.baselineDir</code> system property, or the
+	 * <code>baselines</code> subdirectory of the artifact directory.</p>
+	 *
+	 * @return
+	 * Returns the default store.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the index cannot be read.
+	 */
+	public static synchronized BaselineStore getDefault()
+	throws IOException {
+		if( ms_defaultStore == null ) {
+			final String directoryPath = System.getProperty( BASELINE_DIRECTORY_PROPERTY );
+			final File directory = (directoryPath != null)
+					? new File( directoryPath )
+					: new File( ChromeDriverTest.getArtifactDirectory(), "baselines" );
+			ms_defaultStore = new BaselineStore( directory, DEFAULT_CACHE_SIZE );
+		}
+		return( ms_defaultStore );
+	}
+
+	/**
+	 * <p>Determine whether visual tests are to record missing baselines, as
+	 * selected by the <code>sqs.qa.recordBaselines</code> system property.
+	 * Otherwise, a missing baseline fails the test.</p>
+	 *
+	 * @return
+	 * Returns <code>true</code> if missing baselines are recorded.
+	 */
+	public static boolean isRecording() {
+		return( Boolean.getBoolean(RECORD_PROPERTY) );
+	}
+
+	/**
+	 * <p>Build a baseline key.</p>
+	 *
+	 * @param testName
+	 * The test name.
+	 * @param elementName
+	 * The name of the captured element.
+	 * @param viewport
+	 * The viewport description, such as <code>1280x1024</code>.
+	 * @return
+	 * Returns the key.
+	 */
+	public static String key( final String testName, final String elementName, final String viewport ) {
+		return( testName + "/" + elementName + "/" + viewport );
+	}
+
+	/**
+	 * <p>Compute the SHA-256 hash of the specified bytes.</p>
+	 *
+	 * @param bytes
+	 * The bytes.
+	 * @return
+	 * Returns the lower-case hexadecimal hash.
+	 */
+	static String hash( final byte[] bytes ) {
+		final MessageDigest messageDigest;
+		try {
+			messageDigest = MessageDigest.getInstance( "SHA-256" );
+		} catch( NoSuchAlgorithmException noSuchAlgorithmException ) {
+			// Every Java platform is required to support SHA-256
+			throw( new IllegalStateException(noSuchAlgorithmException) );
+		}
+		final StringBuilder sb = new StringBuilder();
+		for( byte b : messageDigest.digest(bytes) ) {
+			sb.append( String.format("%02x", b & 0xff) );
+		}
+		return( sb.toString() );
+	}
+
+	private static BufferedImage decode( final InputStream inputStream )
+	throws IOException {
+		final BufferedImage result = ImageIO.read( new MemoryCacheImageInputStream(inputStream) );
+		if( result == null ) {
+			throw( new IOException("Cannot decode image") );
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Write a file by way of a temporary file, so that readers never see a
+	 * partially written file.</p>
+	 */
+	private static void writeAtomically( final File file, final byte[] bytes )
+	throws IOException {
+		final File directory = file.getParentFile();
+		if( (directory.isDirectory() == false)
+				&& (directory.mkdirs() == false) ) {
+			throw( new IOException("Cannot create directory: " + directory) );
+		}
+		// Unique, since another process may be writing the same file
+		final Path temporaryPath = Files.createTempFile( directory.toPath(), file.getName(), ".tmp" );
+		Files.write( temporaryPath, bytes );
+		Files.move( temporaryPath, file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+	}
+
+	private static void load( final File file, final Properties properties )
+	throws IOException {
+		final InputStream inputStream = new FileInputStream( file );
+		try {
+			properties.load( inputStream );
+		} finally {
+			inputStream.close();
+		}
+	}
+
+
+	//
+	// Nested classes
+	//
+
+	/**
+	 * <p>Input stream reading a (memory-mapped) byte buffer.</p>
+	 */
+	private static final class ByteBufferInputStream
+	extends InputStream
+	{
+		private final ByteBuffer m_byteBuffer;
+
+		ByteBufferInputStream( final ByteBuffer byteBuffer ) {
+			super();
+			m_byteBuffer = byteBuffer;
+		}
+
+		@Override
+		public int read() {
+			int result = -1;
+			if( m_byteBuffer.hasRemaining() == true ) {
+				result = m_byteBuffer.get() & 0xff;
+			}
+			return( result );
+		}
+
+		@Override
+		public int read( final byte[] bytes, final int offset, final int length ) {
+			if( m_byteBuffer.hasRemaining() == false ) {
+				return( -1 );
+			}
+			final int count = Math.min( length, m_byteBuffer.remaining() );
+			m_byteBuffer.get( bytes, offset, count );
+			return( count );
+		}
+	}
+}
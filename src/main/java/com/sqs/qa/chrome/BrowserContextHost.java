@@ -0,0 +1,240 @@
+/*
+ * com/sqs/qa/chrome/BrowserContextHost.java
+ *
+ * BrowserContextHost object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chromium.ChromiumDriver;
+
+
+/**
+ * <p>A single Chrome process in which sessions are opened as isolated
+ * browser contexts, rather than each launching its own browser.</p>
+ *
+ * <p>The host session launches Chrome and creates, through the DevTools
+ * <code>Target</code> domain, one browser context with one tab per session.
+ * A browser context has its own cookies, storage and cache, like an
+ * incognito window.  Each session is a chromedriver session attached to the
+ * running browser by its debugger address and switched to its own tab.
+ * Discarding a session disposes of its browser context.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+final class BrowserContextHost
+{
+	//
+	// Constants
+	//
+
+	/**
+	 * <p>The capability reporting the Chrome options of a session.</p>
+	 */
+	private static final String CHROME_OPTIONS_CAPABILITY = "goog:chromeOptions";
+
+	private static final String BLANK_URL = "about:blank";
+
+
+	//
+	// Instance fields
+	//
+
+	private final ChromeDriverService m_driverService;
+
+	private final LaunchProfile m_launchProfile;
+
+	/**
+	 * <p>The session that launched Chrome and manages its browser
+	 * contexts.</p>
+	 */
+	private final ChromeDriver m_hostDriver;
+
+	/**
+	 * <p>The <code>host:port</code> on which Chrome accepts DevTools
+	 * connections.</p>
+	 */
+	private final String m_debuggerAddress;
+
+	/**
+	 * <p>Browser context IDs by attached session.</p>
+	 */
+	private final Map<ChromiumDriver, String> m_browserContextIds;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Launch Chrome for a new {@link BrowserContextHost}.</p>
+	 *
+	 * @param driverService
+	 * The chromedriver process with which to create sessions.
+	 * @param launchProfile
+	 * The profile with which to launch Chrome.
+	 *
+	 * @throws WebDriverException
+	 * This exception is thrown if Chrome cannot be launched.
+	 */
+	BrowserContextHost( final ChromeDriverService driverService, final LaunchProfile launchProfile ) {
+		super();
+
+		m_driverService = driverService;
+		m_launchProfile = launchProfile;
+		m_hostDriver = new ChromeDriver( driverService, launchProfile.createOptions() );
+		m_browserContextIds = new IdentityHashMap<ChromiumDriver, String>();
+
+		final Object chromeOptions = m_hostDriver.getCapabilities().getCapability( CHROME_OPTIONS_CAPABILITY );
+		final Object debuggerAddress = (chromeOptions instanceof Map<?, ?>)
+				? ((Map<?, ?>) chromeOptions).get( "debuggerAddress" ) : null;
+		if( (debuggerAddress instanceof String) == false ) {
+			quitQuietly( m_hostDriver );
+			throw( new WebDriverException("Chrome did not report a debugger address") );
+		}
+		m_debuggerAddress = (String) debuggerAddress;
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	/**
+	 * <p>Open a new session in its own browser context.</p>
+	 *
+	 * @return
+	 * Returns the session, showing <code>about:blank</code>.
+	 *
+	 * @throws WebDriverException
+	 * This exception is thrown if the session cannot be created.
+	 */
+	ChromeDriver createSession() {
+		final Map<String, Object> parameters = new HashMap<String, Object>();
+		final String browserContextId = (String) m_hostDriver.executeCdpCommand(
+				"Target.createBrowserContext", parameters ).get( "browserContextId" );
+
+		ChromeDriver result = null;
+		try {
+			parameters.put( "url", BLANK_URL );
+			parameters.put( "browserContextId", browserContextId );
+			final String targetId = (String) m_hostDriver.executeCdpCommand(
+					"Target.createTarget", parameters ).get( "targetId" );
+
+			result = new ChromeDriver( m_driverService, m_launchProfile.createOptions(m_debuggerAddress) );
+			// Window handles are the DevTools target IDs
+			String windowHandle = null;
+			for( String handle : result.getWindowHandles() ) {
+				if( handle.endsWith(targetId) == true ) {
+					windowHandle = handle;
+				}
+			}
+			if( windowHandle == null ) {
+				throw( new WebDriverException("Tab not found: " + targetId) );
+			}
+			result.switchTo().window( windowHandle );
+		} catch( WebDriverException webDriverException ) {
+			if( result != null ) {
+				quitQuietly( result );
+			}
+			disposeBrowserContext( browserContextId );
+			throw( webDriverException );
+		}
+
+		synchronized( m_browserContextIds ) {
+			m_browserContextIds.put( result, browserContextId );
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Quit a session created by this host and dispose of its browser
+	 * context, ignoring any errors.</p>
+	 *
+	 * @param webDriver
+	 * The session, which may be decorated.
+	 * @return
+	 * Returns <code>true</code> if the session was created by this host, or
+	 * <code>false</code> if it was not.
+	 */
+	boolean dispose( final WebDriver webDriver ) {
+		final ChromiumDriver chromiumDriver = DevTools.getChromiumDriver( webDriver );
+		final String browserContextId;
+		synchronized( m_browserContextIds ) {
+			browserContextId = m_browserContextIds.remove( chromiumDriver );
+		}
+		if( browserContextId == null ) {
+			return( false );
+		}
+		quitQuietly( chromiumDriver );
+		disposeBrowserContext( browserContextId );
+		return( true );
+	}
+
+	/**
+	 * <p>Check whether Chrome is still responding.</p>
+	 *
+	 * @return
+	 * Returns <code>true</code> if it is.
+	 */
+	boolean isAlive() {
+		boolean result = false;
+		try {
+			m_hostDriver.getWindowHandle();
+			result = true;
+		} catch( WebDriverException webDriverException ) {
+			// Chrome or the host session is gone
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Quit all sessions and Chrome, ignoring any errors.</p>
+	 */
+	void quit() {
+		final List<ChromiumDriver> sessions;
+		synchronized( m_browserContextIds ) {
+			sessions = new ArrayList<ChromiumDriver>( m_browserContextIds.keySet() );
+			m_browserContextIds.clear();
+		}
+		for( ChromiumDriver session : sessions ) {
+			quitQuietly( session );
+		}
+		quitQuietly( m_hostDriver );
+	}
+
+	private void disposeBrowserContext( final String browserContextId ) {
+		final Map<String, Object> parameters = new HashMap<String, Object>();
+		parameters.put( "browserContextId", browserContextId );
+		try {
+			m_hostDriver.executeCdpCommand( "Target.disposeBrowserContext", parameters );
+		} catch( WebDriverException webDriverException ) {
+			// Ignore; the context goes with the browser
+		}
+	}
+
+
+	//
+	// Class methods
+	//
+
+	private static void quitQuietly( final WebDriver webDriver ) {
+		try {
+			webDriver.quit();
+		} catch( WebDriverException webDriverException ) {
+			// Ignore
+		}
+	}
+}
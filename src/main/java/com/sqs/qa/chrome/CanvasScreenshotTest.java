@@ -10,39 +10,38 @@ package com.sqs.qa.chrome;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.List;
 
 import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
 import org.openqa.selenium.Keys;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
-
-import com.google.common.io.Files;
 
 
 /**
  * <p>Test to validate that a <code>&lt;canvas&gt;</code> element exists, and
  * compares a screenshot of it to a reference screenshot.</p>
  *
+ * <p>The test zooms the page, so it must not share a page load with other
+ * tests.</p>
+ *
  * @author Michael Gaugy (mgaugy@yahoo.com)
  */
+@ChromeTest( page = "challenging_dom", tags = { "canvas", "screenshot" }, mutatesPage = true )
 public class CanvasScreenshotTest
 extends ChromeDriverTest
 {
 	//
-	// Instance fields
+	// Constants
 	//
 
 	/**
-	 * <p>The web driver to use.</p>
-	 */
-	private final WebDriver m_webDriver;
-
-	/**
-	 * <p>The URL to be tested.</p>
+	 * <p>Comparator for the canvas images: each channel may differ by 16,
+	 * anti-aliasing is ignored, and no other pixel may differ.</p>
 	 */
-	private final String m_url;
+	private static final ImageComparator IMAGE_COMPARATOR = new ImageComparator( 16, 0, true );
 
 
 	//
@@ -57,16 +56,7 @@ extends ChromeDriverTest
 	 * The URL to test.
 	 */
 	public CanvasScreenshotTest( final String url ) {
-		super();
-
-		if( url == null ) {
-			throw( new NullPointerException("'url' is null!") );
-		} else if( url.length() == 0 ) {
-			throw( new IllegalArgumentException("'url' has zero length") );
-		}
-
-		m_webDriver = new ChromeDriver();
-		m_url = url;
+		super( url );
 	}
 
 
@@ -75,17 +65,14 @@ extends ChromeDriverTest
 	//
 
 	@Override
-	public void run() {
-		// Fetch the page
-		m_webDriver.get( m_url );
-
+	protected void runTest( final PageFixture page ) {
 		// Zoom out
-		final WebElement htmlWebElement = m_webDriver.findElement( By.tagName("html") );
+		final WebElement htmlWebElement = page.findElement( By.tagName("html") );
 		htmlWebElement.sendKeys( Keys.chord(Keys.CONTROL, Keys.SUBTRACT) );
 
 		// Find the "large-10" <div> containers.
 		final By large10By = By.className( "large-10" );
-		final List<WebElement> large10WebElementList = m_webDriver.findElements( large10By );
+		final List<WebElement> large10WebElementList = page.findElements( large10By );
 
 		for( WebElement large10WebElement : large10WebElementList ) {
 			final By canvasBy = By.tagName( "canvas" );
@@ -94,12 +81,33 @@ extends ChromeDriverTest
 				// XXX: ASSUME: Check only the first <canvas> element
 				try {
 					final WebElement canvasWebElement = canvasWebElementList.get( 0 );
-					captureScreenshot( m_webDriver, canvasWebElement, "selenium-canvas.png", true );
-					final File testFile = new File( System.getProperty("user.home") + "/Downloads/selenium-canvas.png" );
-					final File referenceFile = new File( System.getProperty("user.home") + "/Downloads/selenium-canvas-original.png" );
-					final boolean result = Files.equal( testFile, referenceFile );
-					if( result == false ) {
-						error( "Canvas elements differ.  Please check image files." );
+					final WebDriver webDriver = page.getWebDriver();
+					final byte[] testPng = captureElementScreenshot( webDriver, canvasWebElement );
+					final Dimension windowSize = webDriver.manage().window().getSize();
+					final String baselineKey = BaselineStore.key( getClass().getName(), "canvas",
+							windowSize.width + "x" + windowSize.height );
+
+					final BaselineStore baselineStore = BaselineStore.getDefault();
+					if( baselineStore.contains(baselineKey) == false ) {
+						// Adopt the reference screenshot used before the store existed, if any
+						final File referenceFile = new File( getArtifactDirectory(), "selenium-canvas-original.png" );
+						if( referenceFile.exists() == true ) {
+							baselineStore.record( baselineKey, Files.readAllBytes(referenceFile.toPath()) );
+							info( "No baseline for %s; adopted %s", baselineKey, referenceFile );
+						} else if( BaselineStore.isRecording() == true ) {
+							baselineStore.record( baselineKey, testPng );
+							warning( "No baseline for %s; recorded this capture", baselineKey );
+						} else {
+							artifact( writeArtifact("selenium-canvas.png", testPng) );
+							error( "No baseline for %s; set sqs.qa.recordBaselines to record one", baselineKey );
+							continue;
+						}
+					}
+
+					final ImageComparison result = baselineStore.compare( baselineKey, testPng, IMAGE_COMPARATOR );
+					if( result.isMatching() == false ) {
+						artifact( writeArtifact("selenium-canvas.png", testPng) );
+						error( "Canvas elements differ (%s).  Please check image files.", result );
 					}
 				} catch( IOException ioException ) {
 					ioException.printStackTrace();
@@ -108,9 +116,6 @@ extends ChromeDriverTest
 				error( "No <canvas> element found to test!" );
 			}
 		}
-
-		// All done.
-		m_webDriver.close();
 	}
 
 
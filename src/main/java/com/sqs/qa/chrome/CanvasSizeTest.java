@@ -10,11 +10,6 @@ package com.sqs.qa.chrome;
 
 import java.util.List;
 
-import org.openqa.selenium.By;
-import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
-
 
 /**
  * <p>Test to validate that there exists a <code>&lt;canvas&gt;</code> element
@@ -22,24 +17,10 @@ import org.openqa.selenium.chrome.ChromeDriver;
  *
  * @author Michael Gaugy (mgaugy@yahoo.com)
  */
+@ChromeTest( page = "challenging_dom", tags = "canvas", dependsOn = "large-10" )
 public class CanvasSizeTest
 extends ChromeDriverTest
 {
-	//
-	// Instance fields
-	//
-
-	/**
-	 * <p>The web driver to use.</p>
-	 */
-	private final WebDriver m_webDriver;
-
-	/**
-	 * <p>The URL to be tested.</p>
-	 */
-	private final String m_url;
-
-
 	//
 	// Constructors
 	//
@@ -52,16 +33,7 @@ extends ChromeDriverTest
 	 * The URL to test.
 	 */
 	public CanvasSizeTest( final String url ) {
-		super();
-
-		if( url == null ) {
-			throw( new NullPointerException("'url' is null!") );
-		} else if( url.length() == 0 ) {
-			throw( new IllegalArgumentException("'url' has zero length") );
-		}
-
-		m_webDriver = new ChromeDriver();
-		m_url = url;
+		super( url );
 	}
 
 
@@ -70,23 +42,18 @@ extends ChromeDriverTest
 	//
 
 	@Override
-	public void run() {
-		// Fetch the page
-		m_webDriver.get( m_url );
-
+	protected void runTest( final PageFixture page ) {
 		// Find the "large-10" <div> containers.
-		final By large10By = By.className( "large-10" );
-		final List<WebElement> large10WebElementList = m_webDriver.findElements( large10By );
+		final List<DomNode> large10NodeList = page.getSnapshot().findElementsByClassName( "large-10" );
 
-		for( WebElement large10WebElement : large10WebElementList ) {
-			final By canvasBy = By.tagName( "canvas" );
-			final List<WebElement> canvasWebElementList = large10WebElement.findElements( canvasBy );
-			if( canvasWebElementList.isEmpty() == false ) {
+		for( DomNode large10Node : large10NodeList ) {
+			final List<DomNode> canvasNodeList = large10Node.findElementsByTagName( "canvas" );
+			if( canvasNodeList.isEmpty() == false ) {
 				// XXX: Assumption: Check only the first <canvas> element
-				final WebElement canvasWebElement = canvasWebElementList.get( 0 );
+				final DomNode canvasNode = canvasNodeList.get( 0 );
 
-				final String canvasWidthString = canvasWebElement.getAttribute( "width" );
-				final String canvasHeightString = canvasWebElement.getAttribute( "height" );
+				final String canvasWidthString = canvasNode.getAttribute( "width" );
+				final String canvasHeightString = canvasNode.getAttribute( "height" );
 				final int canvasWidth = Integer.parseInt( canvasWidthString );
 				final int canvasHeight = Integer.parseInt( canvasHeightString );
 
@@ -98,9 +65,6 @@ extends ChromeDriverTest
 				error( "No <canvas> element found to test!" );
 			}
 		}
-
-		// All done.
-		m_webDriver.close();
 	}
 
 
@@ -0,0 +1,720 @@
+/*
+ * com/sqs/qa/chrome/ChromeDriverPool.java
+ *
+ * ChromeDriverPool object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+
+
+/**
+ * <p>Pool of reusable {@link ChromeDriver} sessions.</p>
+ *
+ * <p>Launching Chrome and chromedriver is by far the most expensive part of
+ * a test, so sessions are borrowed by tests and returned to the pool when
+ * they complete.  Each session is handed out as a {@link PageFixture}, so a
+ * page loaded by one test is reused by the next test checking the same URL.
+ * A returned session whose page was modified is reset (cookies and storage
+ * cleared, navigated to <code>about:blank</code>) before it is handed to the
+ * next borrower; a session that cannot be reset is quit and discarded.</p>
+ *
+ * <p>All sessions are created against a single chromedriver process, which
+ * is started with the first session and stopped when the pool has been shut
+ * down and the last session quit.  Before each session is borrowed, the
+ * process is checked; if it has died, it is restarted and the idle sessions,
+ * which died with it, are discarded.</p>
+ *
+ * <p>Optionally, all sessions share one Chrome process, each in its own
+ * browser context (see {@link BrowserContextHost}), which takes far less
+ * memory than a browser per session.  This is selected by the
+ * <code>sqs.qa.browserContexts</code> system property.  If Chrome stops
+ * responding, it is relaunched in the same way as chromedriver.</p>
+ *
+ * <p>Sessions are launched with the pool's {@link LaunchProfile}.  If the
+ * profile blocks requests, the requests blocked in each session are counted
+ * when it is returned or quit.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class ChromeDriverPool
+{
+	//
+	// Constants
+	//
+
+	/**
+	 * <p>The default maximum number of concurrent sessions.</p>
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 1;
+
+	/**
+	 * <p>System property selecting whether sessions are browser contexts in
+	 * one shared Chrome process.</p>
+	 */
+	private static final String BROWSER_CONTEXTS_PROPERTY = "sqs.qa.browserContexts";
+
+	/**
+	 * <p>The page to which returned sessions are navigated.</p>
+	 */
+	private static final String BLANK_URL = "about:blank";
+
+	/**
+	 * <p>Script used to clear the web storage of the current page.</p>
+	 */
+	private static final String CLEAR_STORAGE_SCRIPT =
+			"try { window.localStorage.clear(); } catch( e ) {}"
+			+ "try { window.sessionStorage.clear(); } catch( e ) {}";
+
+
+	//
+	// Class fields
+	//
+
+	/**
+	 * <p>The shared default pool.</p>
+	 */
+	private static ChromeDriverPool ms_defaultPool;
+
+
+	//
+	// Instance fields
+	//
+
+	/**
+	 * <p>The maximum number of sessions (idle and borrowed).</p>
+	 */
+	private final int m_maximumSize;
+
+	/**
+	 * <p>Sessions available to be borrowed.</p>
+	 */
+	private final Deque<PageFixture> m_idlePageFixtures;
+
+	/**
+	 * <p>The number of sessions (idle, borrowed or being launched) that have
+	 * not been discarded.</p>
+	 */
+	private int m_size;
+
+	private boolean m_shutdown;
+
+	private final LaunchProfile m_launchProfile;
+
+	/**
+	 * <p>The chromedriver process shared by all sessions, or
+	 * <code>null</code> if it has not been started.</p>
+	 */
+	private ChromeDriverService m_driverService;
+
+	/**
+	 * <p>The number of times the chromedriver process was restarted after it
+	 * died.</p>
+	 */
+	private int m_driverServiceRestartCount;
+
+	/**
+	 * <p>Whether a borrower is starting the chromedriver process.</p>
+	 */
+	private boolean m_driverServiceStarting;
+
+	/**
+	 * <p>Whether sessions are browser contexts in one shared Chrome
+	 * process.</p>
+	 */
+	private final boolean m_useBrowserContexts;
+
+	/**
+	 * <p>The shared Chrome process, or <code>null</code> if it has not been
+	 * launched or sessions are not browser contexts.</p>
+	 */
+	private BrowserContextHost m_browserContextHost;
+
+	/**
+	 * <p>Whether a borrower is launching the shared Chrome process.</p>
+	 */
+	private boolean m_browserContextHostStarting;
+
+	/**
+	 * <p>The number of requests blocked by the launch profile in sessions
+	 * returned so far.</p>
+	 */
+	private final AtomicInteger m_blockedRequestCount;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link ChromeDriverPool} with the specified maximum
+	 * size and the launch profile selected by the <code>sqs.qa.profile</code>
+	 * system property.</p>
+	 *
+	 * @param maximumSize
+	 * The maximum number of concurrent sessions.
+	 */
+	public ChromeDriverPool( final int maximumSize ) {
+		this( maximumSize, LaunchProfile.getSelected() );
+	}
+
+	/**
+	 * <p>Initialize a new {@link ChromeDriverPool} with the specified maximum
+	 * size and launch profile.</p>
+	 *
+	 * @param maximumSize
+	 * The maximum number of concurrent sessions.
+	 * @param launchProfile
+	 * The profile with which sessions are launched.
+	 */
+	public ChromeDriverPool( final int maximumSize, final LaunchProfile launchProfile ) {
+		this( maximumSize, launchProfile, Boolean.getBoolean(BROWSER_CONTEXTS_PROPERTY) );
+	}
+
+	/**
+	 * <p>Initialize a new {@link ChromeDriverPool} with the specified maximum
+	 * size, launch profile and kind of session.</p>
+	 *
+	 * @param maximumSize
+	 * The maximum number of concurrent sessions.
+	 * @param launchProfile
+	 * The profile with which sessions are launched.
+	 * @param useBrowserContexts
+	 * <code>true</code> if sessions are browser contexts in one shared Chrome
+	 * process, or <code>false</code> if each session launches its own.
+	 */
+	public ChromeDriverPool( final int maximumSize, final LaunchProfile launchProfile,
+			final boolean useBrowserContexts ) {
+		super();
+
+		if( maximumSize < 1 ) {
+			throw( new IllegalArgumentException("'maximumSize' must be at least 1: " + maximumSize) );
+		}
+		if( launchProfile == null ) {
+			throw( new NullPointerException("'launchProfile' is null!") );
+		}
+
+		m_maximumSize = maximumSize;
+		m_idlePageFixtures = new ArrayDeque<PageFixture>();
+		m_launchProfile = launchProfile;
+		m_blockedRequestCount = new AtomicInteger();
+		m_useBrowserContexts = useBrowserContexts;
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	/**
+	 * <p>Borrow a session from the pool, launching a new one if none are idle
+	 * and the pool has not reached its maximum size.  Otherwise, block until
+	 * a session is returned.  Idle sessions already showing the specified URL
+	 * are preferred.</p>
+	 *
+	 * @param url
+	 * The URL the borrower intends to load, or <code>null</code> if none.
+	 * @return
+	 * Returns the borrowed session.
+	 *
+	 * @throws InterruptedException
+	 * This exception is thrown if the calling thread is interrupted while
+	 * waiting for a session.
+	 */
+	public PageFixture borrow( final String url )
+	throws InterruptedException {
+		ChromeDriverService driverService;
+		BrowserContextHost browserContextHost;
+		while( true ) {
+			// Probed and restarted outside the lock, which would otherwise be held
+			// for a round trip to the process or the whole of its start up
+			driverService = checkDriverService();
+			browserContextHost = checkBrowserContextHost( driverService );
+			synchronized( this ) {
+				if( m_shutdown == true ) {
+					throw( new IllegalStateException("Pool has been shut down") );
+				}
+				if( (m_driverService == driverService)
+						&& (m_browserContextHost == browserContextHost) ) {
+					if( m_idlePageFixtures.isEmpty() == false ) {
+						return( removeIdle(url) );
+					}
+					if( m_size < m_maximumSize ) {
+						// Reserve the slot; the session is launched outside the lock
+						m_size++;
+						break;
+					}
+					wait();
+				}
+				// Otherwise, a process was restarted meanwhile; check them again
+			}
+		}
+
+		WebDriver webDriver = null;
+		try {
+			webDriver = createWebDriver( driverService, browserContextHost );
+		} finally {
+			if( webDriver == null ) {
+				synchronized( this ) {
+					m_size--;
+					notifyAll();
+				}
+			}
+		}
+		return( new PageFixture(webDriver) );
+	}
+
+	/**
+	 * <p>Return a previously borrowed session to the pool.  If its page was
+	 * modified, the session is reset before it becomes available to other
+	 * borrowers; otherwise the loaded page is kept for reuse.</p>
+	 *
+	 * @param pageFixture
+	 * The session to return.
+	 */
+	public void release( final PageFixture pageFixture ) {
+		if( pageFixture == null ) {
+			throw( new NullPointerException("'pageFixture' is null!") );
+		}
+
+		final WebDriver webDriver = pageFixture.getWebDriver();
+		countBlockedRequests( webDriver );
+		boolean reusable = true;
+		if( pageFixture.isDirty() == true ) {
+			pageFixture.clear();
+			reusable = reset( webDriver );
+		}
+
+		synchronized( this ) {
+			if( (reusable == true)
+					&& (m_shutdown == false) ) {
+				m_idlePageFixtures.addLast( pageFixture );
+				notifyAll();
+				return;
+			}
+			m_size--;
+			notifyAll();
+		}
+		discard( webDriver );
+		stopDriverServiceIfUnused();
+	}
+
+	/**
+	 * <p>Quit all idle sessions and refuse further borrowing.  Sessions that
+	 * are still borrowed are quit when they are returned.</p>
+	 */
+	public void shutdown() {
+		final List<PageFixture> idlePageFixtures;
+		synchronized( this ) {
+			m_shutdown = true;
+			idlePageFixtures = new ArrayList<PageFixture>( m_idlePageFixtures );
+			m_idlePageFixtures.clear();
+			m_size -= idlePageFixtures.size();
+			notifyAll();
+		}
+		for( PageFixture pageFixture : idlePageFixtures ) {
+			countBlockedRequests( pageFixture.getWebDriver() );
+			discard( pageFixture.getWebDriver() );
+		}
+		stopDriverServiceIfUnused();
+	}
+
+	public LaunchProfile getLaunchProfile() {
+		return( m_launchProfile );
+	}
+
+	/**
+	 * <p>Get the number of requests blocked by the launch profile in the
+	 * sessions returned to the pool so far.</p>
+	 *
+	 * @return
+	 * Returns the count.
+	 */
+	public int getBlockedRequestCount() {
+		return( m_blockedRequestCount.get() );
+	}
+
+	/**
+	 * <p>Get the number of times the chromedriver process was restarted after
+	 * it died.</p>
+	 *
+	 * @return
+	 * Returns the count.
+	 */
+	public synchronized int getDriverServiceRestartCount() {
+		return( m_driverServiceRestartCount );
+	}
+
+	/**
+	 * <p>Start the chromedriver process if it is not running.  If it was
+	 * running before, it has died, and so have the idle sessions; those are
+	 * quit and discarded.  Must be called without the lock held: the process
+	 * is probed and started outside it, while other borrowers wait for the
+	 * start to complete.</p>
+	 *
+	 * @return
+	 * Returns the running chromedriver process.
+	 *
+	 * @throws InterruptedException
+	 * This exception is thrown if the calling thread is interrupted while
+	 * another borrower starts the process.
+	 * @throws WebDriverException
+	 * This exception is thrown if the process cannot be started.
+	 */
+	private ChromeDriverService checkDriverService()
+	throws InterruptedException {
+		while( true ) {
+			final ChromeDriverService driverService;
+			synchronized( this ) {
+				while( m_driverServiceStarting == true ) {
+					wait();
+				}
+				if( m_shutdown == true ) {
+					throw( new IllegalStateException("Pool has been shut down") );
+				}
+				driverService = m_driverService;
+			}
+			if( (driverService != null)
+					&& (driverService.isRunning() == true) ) {
+				return( driverService );
+			}
+
+			final List<PageFixture> deadPageFixtures;
+			final BrowserContextHost deadBrowserContextHost;
+			synchronized( this ) {
+				if( (m_driverServiceStarting == true)
+						|| (m_driverService != driverService) ) {
+					// Another borrower got there first
+					continue;
+				}
+				m_driverServiceStarting = true;
+				deadPageFixtures = new ArrayList<PageFixture>( m_idlePageFixtures );
+				m_idlePageFixtures.clear();
+				m_size -= deadPageFixtures.size();
+				deadBrowserContextHost = m_browserContextHost;
+				m_browserContextHost = null;
+				m_driverService = null;
+				if( driverService != null ) {
+					m_driverServiceRestartCount++;
+				}
+				notifyAll();
+			}
+
+			ChromeDriverService startedDriverService = null;
+			try {
+				// The sessions died with the process, but still hold resources
+				for( PageFixture pageFixture : deadPageFixtures ) {
+					discard( pageFixture.getWebDriver(), deadBrowserContextHost );
+				}
+				if( deadBrowserContextHost != null ) {
+					deadBrowserContextHost.quit();
+				}
+				if( driverService != null ) {
+					driverService.stop();
+				}
+				// Located by the webdriver.chrome.driver system property
+				final ChromeDriverService newDriverService = ChromeDriverService.createDefaultService();
+				try {
+					newDriverService.start();
+				} catch( IOException ioException ) {
+					throw( new WebDriverException("Cannot start chromedriver", ioException) );
+				}
+				startedDriverService = newDriverService;
+			} finally {
+				synchronized( this ) {
+					m_driverService = startedDriverService;
+					m_driverServiceStarting = false;
+					notifyAll();
+				}
+			}
+			// The pool may have been shut down while the process started
+			stopDriverServiceIfUnused();
+			return( startedDriverService );
+		}
+	}
+
+	/**
+	 * <p>Launch the shared Chrome process if sessions are browser contexts
+	 * and it is not running.  If it was running before, it has died, and so
+	 * have the idle sessions; those are disposed of.  Must be called without
+	 * the lock held: Chrome is probed and launched outside it, while other
+	 * borrowers wait for the launch to complete.</p>
+	 *
+	 * @param driverService
+	 * The running chromedriver process.
+	 * @return
+	 * Returns the running Chrome process, or <code>null</code> if sessions
+	 * are not browser contexts or chromedriver was restarted meanwhile.
+	 *
+	 * @throws InterruptedException
+	 * This exception is thrown if the calling thread is interrupted while
+	 * another borrower launches Chrome.
+	 * @throws WebDriverException
+	 * This exception is thrown if Chrome cannot be launched.
+	 */
+	private BrowserContextHost checkBrowserContextHost( final ChromeDriverService driverService )
+	throws InterruptedException {
+		if( m_useBrowserContexts == false ) {
+			return( null );
+		}
+		while( true ) {
+			final BrowserContextHost browserContextHost;
+			synchronized( this ) {
+				while( m_browserContextHostStarting == true ) {
+					wait();
+				}
+				if( m_driverService != driverService ) {
+					return( null );
+				}
+				browserContextHost = m_browserContextHost;
+			}
+			if( (browserContextHost != null)
+					&& (browserContextHost.isAlive() == true) ) {
+				return( browserContextHost );
+			}
+
+			final List<PageFixture> deadPageFixtures;
+			synchronized( this ) {
+				if( (m_browserContextHostStarting == true)
+						|| (m_driverService != driverService)
+						|| (m_browserContextHost != browserContextHost) ) {
+					// Another borrower got there first
+					continue;
+				}
+				m_browserContextHostStarting = true;
+				deadPageFixtures = new ArrayList<PageFixture>( m_idlePageFixtures );
+				m_idlePageFixtures.clear();
+				m_size -= deadPageFixtures.size();
+				m_browserContextHost = null;
+				if( browserContextHost != null ) {
+					m_driverServiceRestartCount++;
+				}
+				notifyAll();
+			}
+
+			BrowserContextHost launchedBrowserContextHost = null;
+			boolean installed = false;
+			try {
+				for( PageFixture pageFixture : deadPageFixtures ) {
+					discard( pageFixture.getWebDriver(), browserContextHost );
+				}
+				if( browserContextHost != null ) {
+					browserContextHost.quit();
+				}
+				launchedBrowserContextHost = new BrowserContextHost( driverService, m_launchProfile );
+			} finally {
+				synchronized( this ) {
+					// Unless chromedriver was restarted, or the pool shut down, meanwhile
+					if( (launchedBrowserContextHost != null)
+							&& (m_driverService == driverService) ) {
+						m_browserContextHost = launchedBrowserContextHost;
+						installed = true;
+					}
+					m_browserContextHostStarting = false;
+					notifyAll();
+				}
+			}
+			if( installed == false ) {
+				launchedBrowserContextHost.quit();
+				return( null );
+			}
+			return( launchedBrowserContextHost );
+		}
+	}
+
+	/**
+	 * <p>Stop the chromedriver process, and the shared Chrome process if any,
+	 * once the pool has been shut down and every session has been quit.</p>
+	 */
+	private synchronized void stopDriverServiceIfUnused() {
+		if( (m_shutdown == true)
+				&& (m_size == 0)
+				&& (m_driverService != null) ) {
+			if( m_browserContextHost != null ) {
+				m_browserContextHost.quit();
+				m_browserContextHost = null;
+			}
+			m_driverService.stop();
+			m_driverService = null;
+		}
+	}
+
+	/**
+	 * <p>Remove an idle session, preferring one already showing the specified
+	 * URL.  Must be called with the lock held and at least one idle
+	 * session.</p>
+	 *
+	 * @param url
+	 * The preferred URL, or <code>null</code> if none.
+	 * @return
+	 * Returns the removed session.
+	 */
+	private PageFixture removeIdle( final String url ) {
+		if( url != null ) {
+			final Iterator<PageFixture> iterator = m_idlePageFixtures.iterator();
+			while( iterator.hasNext() == true ) {
+				final PageFixture pageFixture = iterator.next();
+				if( url.equals(pageFixture.getUrl()) == true ) {
+					iterator.remove();
+					return( pageFixture );
+				}
+			}
+		}
+		return( m_idlePageFixtures.removeFirst() );
+	}
+
+	/**
+	 * <p>Launch a new session with the pool's launch profile.  Its commands
+	 * are counted, so that tests can be held to a command budget.</p>
+	 *
+	 * @param driverService
+	 * The chromedriver process with which to create the session.
+	 * @param browserContextHost
+	 * The shared Chrome process in which to open the session, or
+	 * <code>null</code> to launch a new one.
+	 * @return
+	 * Returns the new session.
+	 */
+	private WebDriver createWebDriver( final ChromeDriverService driverService,
+			final BrowserContextHost browserContextHost ) {
+		final ChromeDriver chromeDriver = (browserContextHost != null)
+				? browserContextHost.createSession()
+				: new ChromeDriver( driverService, m_launchProfile.createOptions() );
+		final WebDriver result = CommandCounter.decorate( chromeDriver, new CommandCounter() );
+		try {
+			m_launchProfile.initialise( result );
+		} catch( RuntimeException runtimeException ) {
+			discard( result );
+			throw( runtimeException );
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Quit a session, ignoring any errors.  A session opened in the shared
+	 * Chrome process has its browser context disposed of.</p>
+	 *
+	 * @param webDriver
+	 * The session to quit.
+	 */
+	private void discard( final WebDriver webDriver ) {
+		final BrowserContextHost browserContextHost;
+		synchronized( this ) {
+			browserContextHost = m_browserContextHost;
+		}
+		discard( webDriver, browserContextHost );
+	}
+
+	/**
+	 * <p>Add the requests blocked in a session since it was last counted to
+	 * the total, ignoring any errors.</p>
+	 *
+	 * @param webDriver
+	 * The session.
+	 */
+	private void countBlockedRequests( final WebDriver webDriver ) {
+		if( m_launchProfile.isBlocking() == false ) {
+			return;
+		}
+		try {
+			m_blockedRequestCount.addAndGet( m_launchProfile.countBlockedRequests(webDriver) );
+		} catch( WebDriverException webDriverException ) {
+			// Session is unusable; its requests go uncounted
+		}
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Get the shared default pool, creating it on first use.  The pool is
+	 * shut down automatically when the JVM exits.</p>
+	 *
+	 * @return
+	 * Returns the default pool.
+	 */
+	public static synchronized ChromeDriverPool getDefault() {
+		if( ms_defaultPool == null ) {
+			final ChromeDriverPool pool = new ChromeDriverPool( DEFAULT_MAXIMUM_SIZE );
+			Runtime.getRuntime().addShutdownHook( new Thread() {
+				@Override
+				public void run() {
+					pool.shutdown();
+				}
+			} );
+			ms_defaultPool = pool;
+		}
+		return( ms_defaultPool );
+	}
+
+	/**
+	 * <p>Reset a session so that no state leaks to the next borrower.</p>
+	 *
+	 * @param webDriver
+	 * The session to reset.
+	 * @return
+	 * Returns <code>true</code> if the session was reset, or
+	 * <code>false</code> if it is no longer usable.
+	 */
+	private static boolean reset( final WebDriver webDriver ) {
+		boolean result = false;
+		try {
+			webDriver.manage().deleteAllCookies();
+			// Storage is per-origin, so clear it before leaving the page
+			((JavascriptExecutor) webDriver).executeScript( CLEAR_STORAGE_SCRIPT );
+			webDriver.get( BLANK_URL );
+			result = true;
+		} catch( WebDriverException webDriverException ) {
+			// Session is unusable; caller discards it
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Quit a session, ignoring any errors.  A session opened in the
+	 * specified Chrome process has its browser context disposed of.</p>
+	 *
+	 * @param webDriver
+	 * The session to quit.
+	 * @param browserContextHost
+	 * The shared Chrome process in which the session may have been opened,
+	 * or <code>null</code> if none.
+	 */
+	private static void discard( final WebDriver webDriver, final BrowserContextHost browserContextHost ) {
+		if( (browserContextHost == null)
+				|| (browserContextHost.dispose(webDriver) == false) ) {
+			quitQuietly( webDriver );
+		}
+	}
+
+	/**
+	 * <p>Quit a session, ignoring any errors.</p>
+	 *
+	 * @param webDriver
+	 * The session to quit.
+	 */
+	private static void quitQuietly( final WebDriver webDriver ) {
+		try {
+			webDriver.quit();
+		} catch( WebDriverException webDriverException ) {
+			// Ignore
+		}
+	}
+}
@@ -8,13 +8,23 @@
 
 package com.sqs.qa.chrome;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
 
-import org.apache.commons.io.FileUtils;
 import org.openqa.selenium.Dimension;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.OutputType;
@@ -22,6 +32,7 @@ import org.openqa.selenium.Point;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
 
 
 /**
@@ -32,6 +43,171 @@ import org.openqa.selenium.WebElement;
 public abstract class ChromeDriverTest
 implements Runnable
 {
+	//
+	// Constants
+	//
+
+	/**
+	 * <p>Value of {@link #getCommandBudget()} for tests without a command
+	 * budget.</p>
+	 */
+	public static final int NO_COMMAND_BUDGET = -1;
+
+	/**
+	 * <p>Script returning the properties of each element in
+	 * <code>arguments[0]</code>, for {@link #describe(List)}.</p>
+	 */
+	private static final String DESCRIBE_SCRIPT =
+			"var scrollX = window.pageXOffset, scrollY = window.pageYOffset;"
+			+ "var result = [];"
+			+ "for( var i = 0; i < arguments[0].length; i++ ) {"
+			+ "  var e = arguments[0][i];"
+			+ "  var rect = e.getBoundingClientRect();"
+			+ "  result.push( {"
+			+ "    t: e.tagName.toLowerCase(), id: e.getAttribute('id'), c: e.getAttribute('class'),"
+			+ "    text: e.innerText, x: rect.left + scrollX, y: rect.top + scrollY,"
+			+ "    w: rect.width, h: rect.height"
+			+ "  } );"
+			+ "}"
+			+ "return result;";
+
+	/**
+	 * <p>The maximum time to wait for the page to settle before capturing a
+	 * screenshot.</p>
+	 */
+	private static final long SETTLE_TIMEOUT_MILLIS = 2000;
+
+	/**
+	 * <p>The longest in-page wait, which must complete before the script
+	 * timeout set when the session was launched.</p>
+	 */
+	public static final long MAXIMUM_WAIT_MILLIS = LaunchProfile.SCRIPT_TIMEOUT_MILLIS - 1000;
+
+	/**
+	 * <p>Script returning the bounding box of <code>arguments[0]</code> in
+	 * document coordinates.</p>
+	 */
+	private static final String ELEMENT_RECT_SCRIPT =
+			"var rect = arguments[0].getBoundingClientRect();"
+			+ "return { x: rect.left + window.pageXOffset, y: rect.top + window.pageYOffset,"
+			+ "    width: rect.width, height: rect.height };";
+
+	/**
+	 * <p>System property specifying the directory to which artifacts are
+	 * written.</p>
+	 */
+	private static final String ARTIFACT_DIRECTORY_PROPERTY = "sqs.qa.artifactDir";
+
+	/**
+	 * <p>The number of consecutive animation frames during which the layout
+	 * must not change for the page to be considered settled.</p>
+	 */
+	private static final int SETTLE_STABLE_FRAMES = 3;
+
+	/**
+	 * <p>Asynchronous script that waits in the page for the condition
+	 * <code>arguments[0]</code> under the element <code>arguments[1]</code>
+	 * (or the whole document):</p>
+	 *
+	 * <ul>
+	 * <li><code>present</code>: an element matches the CSS selector
+	 * <code>arguments[2]</code>; completes with the element.</li>
+	 * <li><code>text</code>: the rendered text has not changed for
+	 * <code>arguments[3]</code> milliseconds; completes with
+	 * <code>true</code>.</li>
+	 * <li><code>quiet</code>: nothing has been mutated for
+	 * <code>arguments[3]</code> milliseconds; completes with
+	 * <code>true</code>.</li>
+	 * <li><code>settle</code>: the scroll position and the bounding box of
+	 * the element have not changed, and no animations have been running, for
+	 * <code>arguments[3]</code> consecutive animation frames; completes with
+	 * <code>true</code>.</li>
+	 * </ul>
+	 *
+	 * <p>The condition is checked when the page is first probed and then
+	 * only when a <code>MutationObserver</code> reports changes, at most once
+	 * per animation frame; <code>settle</code>, which layout and animations
+	 * can break without any mutation, is checked on every frame.  After <code>arguments[4]</code> milliseconds, the
+	 * script completes with <code>null</code> (<code>present</code>) or
+	 * <code>false</code>, so it never relies on the driver's script
+	 * timeout.</p>
+	 */
+	private static final String WAIT_SCRIPT =
+			"var condition = arguments[0], root = arguments[1] || document.documentElement;"
+			+ "var selector = arguments[2], quiet = arguments[3], timeout = arguments[4];"
+			+ "var done = arguments[arguments.length - 1];"
+			+ "var finished = false, pending = false, quietTimer = null, lastText = null;"
+			+ "var previousLayout = null, stableFrames = 0;"
+			+ "var observer = new MutationObserver( onMutation );"
+			+ "var timeoutTimer = window.setTimeout( function() {"
+			+ "  finish( (condition === 'present') ? null : false );"
+			+ "}, timeout );"
+			+ "function finish( value ) {"
+			+ "  if( finished ) return;"
+			+ "  finished = true;"
+			+ "  observer.disconnect();"
+			+ "  window.clearTimeout( quietTimer );"
+			+ "  window.clearTimeout( timeoutTimer );"
+			+ "  done( value );"
+			+ "}"
+			+ "function restartQuiet() {"
+			+ "  window.clearTimeout( quietTimer );"
+			+ "  quietTimer = window.setTimeout( function() { finish( true ); }, quiet );"
+			+ "}"
+			+ "function check() {"
+			+ "  pending = false;"
+			+ "  if( condition === 'present' ) {"
+			+ "    var element = root.querySelector( selector );"
+			+ "    if( element !== null ) finish( element );"
+			+ "  } else if( condition === 'text' ) {"
+			+ "    var text = root.innerText;"
+			+ "    if( text !== lastText ) {"
+			+ "      lastText = text;"
+			+ "      restartQuiet();"
+			+ "    }"
+			+ "  }"
+			+ "}"
+			+ "function isAnimating() {"
+			+ "  if( typeof document.getAnimations !== 'function' ) return false;"
+			+ "  return document.getAnimations().some( function( a ) { return a.playState === 'running'; } );"
+			+ "}"
+			+ "function onFrame() {"
+			+ "  if( finished ) return;"
+			+ "  var rect = root.getBoundingClientRect();"
+			+ "  var layout = [window.pageXOffset, window.pageYOffset,"
+			+ "      rect.left, rect.top, rect.width, rect.height].join( ',' );"
+			+ "  if( (layout === previousLayout) && (isAnimating() === false) ) {"
+			+ "    stableFrames++;"
+			+ "  } else {"
+			+ "    stableFrames = 0;"
+			+ "    previousLayout = layout;"
+			+ "  }"
+			+ "  if( stableFrames >= quiet ) {"
+			+ "    finish( true );"
+			+ "  } else {"
+			+ "    window.requestAnimationFrame( onFrame );"
+			+ "  }"
+			+ "}"
+			+ "function onMutation() {"
+			+ "  if( condition === 'quiet' ) {"
+			+ "    restartQuiet();"
+			+ "  } else if( pending === false ) {"
+			+ "    pending = true;"
+			+ "    window.requestAnimationFrame( check );"
+			+ "  }"
+			+ "}"
+			+ "if( condition === 'settle' ) {"
+			+ "  window.requestAnimationFrame( onFrame );"
+			+ "} else {"
+			+ "  observer.observe( root, { childList: true, subtree: true, attributes: true, characterData: true } );"
+			+ "  if( condition === 'quiet' ) {"
+			+ "    restartQuiet();"
+			+ "  } else {"
+			+ "    check();"
+			+ "  }"
+			+ "}";
+
+
 	//
 	// Class fields
 	//
@@ -47,19 +223,67 @@ implements Runnable
 	// Instance fields
 	//
 
+	/**
+	 * <p>The URL to be tested.</p>
+	 */
+	private final String m_url;
+
 	private ErrorCallback m_errorCallback;
 
+	/**
+	 * <p>The class name attributed to messages, bound when the callback is
+	 * registered.</p>
+	 */
+	private String m_source;
+
+	/**
+	 * <p>The pool from which the web driver is borrowed.</p>
+	 */
+	private ChromeDriverPool m_webDriverPool;
+
+	/**
+	 * <p>The phase timings of the most recent execution.</p>
+	 */
+	private PhaseTimings m_phaseTimings;
+
+	/**
+	 * <p>The cache of previous passes, or <code>null</code> to always
+	 * execute the checks.</p>
+	 */
+	private ResultCache m_resultCache;
+
+	/**
+	 * <p>The number of errors reported by the current execution.</p>
+	 */
+	private int m_errorCount;
+
+	/**
+	 * <p>Whether the most recent execution reused a pass from the
+	 * {@link ResultCache}.</p>
+	 */
+	private boolean m_resultReused;
+
 
 	//
 	// Constructors
 	//
 
 	/**
-	 * <p>Initialize a new {@link ChromeDriverTest} with default values.</p>
+	 * <p>Initialize a new {@link ChromeDriverTest} with the specified
+	 * URL.</p>
+	 *
+	 * @param url
+	 * The URL to test.
 	 */
-	public ChromeDriverTest() {
+	public ChromeDriverTest( final String url ) {
 		super();
 
+		if( url == null ) {
+			throw( new NullPointerException("'url' is null!") );
+		} else if( url.length() == 0 ) {
+			throw( new IllegalArgumentException("'url' has zero length") );
+		}
+
 		if( ms_driverInitialised == false ) {
 			final String executablePath =
 					System.getProperty("user.home")
@@ -67,6 +291,9 @@ implements Runnable
 			System.setProperty( "webdriver.chrome.driver", executablePath );
 			ms_driverInitialised = true;
 		}
+
+		m_url = url;
+		m_webDriverPool = ChromeDriverPool.getDefault();
 	}
 
 
@@ -74,6 +301,203 @@ implements Runnable
 	// Instance methods
 	//
 
+	/**
+	 * <p>Borrow a web driver from the pool, load the page (unless it is
+	 * already loaded and unmodified), execute the test and return the web
+	 * driver to the pool.</p>
+	 *
+	 * <p>Each phase is timed; see {@link #getPhaseTimings()}.  If a
+	 * {@link ResultCache} is set and the test and the containers it depends
+	 * on are unchanged since it last passed, the pass is reused and the
+	 * checks are not executed.</p>
+	 */
+	@Override
+	public final void run() {
+		final PhaseTimings phaseTimings = new PhaseTimings();
+		m_phaseTimings = phaseTimings;
+		m_errorCount = 0;
+		m_resultReused = false;
+
+		phaseTimings.start( TestPhase.ACQUIRE );
+		final PageFixture pageFixture;
+		try {
+			pageFixture = m_webDriverPool.borrow( m_url );
+		} catch( InterruptedException interruptedException ) {
+			phaseTimings.stop();
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		try {
+			phaseTimings.start( TestPhase.NAVIGATE );
+			pageFixture.load( m_url );
+			phaseTimings.start( TestPhase.CHECKS );
+			final String resultKey = createResultKey( pageFixture );
+			if( (resultKey != null)
+					&& (m_resultCache.reusePass(getClass().getName(), resultKey) == true) ) {
+				m_resultReused = true;
+				info( "Test and page content unchanged since the last pass; checks skipped" );
+			} else {
+				final CommandCounter commandCounter = CommandCounter.of( pageFixture.getWebDriver() );
+				if( commandCounter != null ) {
+					commandCounter.reset();
+				}
+				runTest( pageFixture );
+				if( commandCounter != null ) {
+					checkCommandBudget( commandCounter );
+				}
+				if( (resultKey != null)
+						&& (m_errorCount == 0) ) {
+					m_resultCache.recordPass( getClass().getName(), resultKey );
+				}
+			}
+		} finally {
+			phaseTimings.start( TestPhase.TEARDOWN );
+			if( isPageMutating() == true ) {
+				pageFixture.markDirty();
+			}
+			m_webDriverPool.release( pageFixture );
+			phaseTimings.stop();
+		}
+	}
+
+	/**
+	 * <p>Create the key of this test's result on the loaded page.</p>
+	 *
+	 * @param pageFixture
+	 * The loaded page.
+	 * @return
+	 * Returns the key, or <code>null</code> if the result is not to be
+	 * cached.
+	 */
+	private String createResultKey( final PageFixture pageFixture ) {
+		final ChromeTest chromeTest = getClass().getAnnotation( ChromeTest.class );
+		if( (m_resultCache == null)
+				|| (chromeTest == null)
+				|| (chromeTest.dependsOn().length == 0)
+				|| (isPageMutating() == true) ) {
+			return( null );
+		}
+		// The snapshot is shared with the checks of the tests using the page
+		return( ResultCache.createKey(getClass(), pageFixture.getSnapshot(), chromeTest.dependsOn()) );
+	}
+
+	/**
+	 * <p>Determine whether the most recent execution reused a pass from the
+	 * {@link ResultCache} rather than executing the checks.</p>
+	 *
+	 * @return
+	 * Returns <code>true</code> if the pass was reused.
+	 */
+	public final boolean isResultReused() {
+		return( m_resultReused );
+	}
+
+	/**
+	 * <p>Get the phase timings of the most recent execution.</p>
+	 *
+	 * @return
+	 * Returns the timings, or <code>null</code> if the test has not been
+	 * executed.
+	 */
+	public final PhaseTimings getPhaseTimings() {
+		return( m_phaseTimings );
+	}
+
+	/**
+	 * <p>Execute the test.</p>
+	 *
+	 * <p>The page has been loaded before this method is called.  The web
+	 * driver is owned by the pool; implementations must not close or quit
+	 * it.</p>
+	 *
+	 * @param page
+	 * The loaded page.
+	 */
+	protected abstract void runTest( final PageFixture page );
+
+	/**
+	 * <p>Get the maximum number of commands the test's checks may send to
+	 * the browser.  Round trips dominate the cost of a test, so a budget
+	 * keeps new checks from quietly adding to them.  Exceeding the budget
+	 * is reported as an error; loading the page is not counted.</p>
+	 *
+	 * @return
+	 * Returns the budget; the default is {@link #NO_COMMAND_BUDGET}.
+	 */
+	public int getCommandBudget() {
+		return( NO_COMMAND_BUDGET );
+	}
+
+	/**
+	 * <p>Report the commands sent by the checks, and an error if they
+	 * exceeded the budget.</p>
+	 *
+	 * @param commandCounter
+	 * The counter of the test's web driver.
+	 */
+	private void checkCommandBudget( final CommandCounter commandCounter ) {
+		// The counter is reused by the next test; format it now
+		final String commands = commandCounter.toString();
+		debug( "WebDriver: %s", commands );
+		final int commandBudget = getCommandBudget();
+		if( (commandBudget != NO_COMMAND_BUDGET)
+				&& (commandCounter.getCount() > commandBudget) ) {
+			error( "Exceeded the budget of %d WebDriver commands: %s", commandBudget, commands );
+		}
+	}
+
+	/**
+	 * <p>Determine whether this test modifies the page (by interacting with
+	 * it, zooming, ...).  Read-only tests share a single page load.  When a
+	 * mutating test completes, its session is reset and the page is reloaded
+	 * for whichever test uses it next.  A mutating test is not guaranteed a
+	 * fresh page, though: it may be handed a page already used by read-only
+	 * tests.</p>
+	 *
+	 * @return
+	 * Returns <code>true</code> if this test modifies the page; the default
+	 * is the {@link ChromeTest#mutatesPage()} value of the class, or
+	 * <code>false</code> if it is not annotated.
+	 */
+	public boolean isPageMutating() {
+		final ChromeTest chromeTest = getClass().getAnnotation( ChromeTest.class );
+		return( (chromeTest != null) && (chromeTest.mutatesPage() == true) );
+	}
+
+	/**
+	 * <p>Get the URL to be tested.</p>
+	 *
+	 * @return
+	 * Returns the URL.
+	 */
+	public final String getUrl() {
+		return( m_url );
+	}
+
+	/**
+	 * <p>Register the pool from which to borrow the web driver.</p>
+	 *
+	 * @param pool
+	 * The web driver pool.
+	 */
+	public final void setWebDriverPool( final ChromeDriverPool pool ) {
+		if( pool == null ) {
+			throw( new NullPointerException("'pool' is null!") );
+		}
+		m_webDriverPool = pool;
+	}
+
+	/**
+	 * <p>Register the cache of previous passes.</p>
+	 *
+	 * @param resultCache
+	 * The cache, or <code>null</code> to always execute the checks.
+	 */
+	public final void setResultCache( final ResultCache resultCache ) {
+		m_resultCache = resultCache;
+	}
+
 	/**
 	 * <p>Register callback object for messages.</p>
 	 *
@@ -82,6 +506,7 @@ implements Runnable
 	 */
 	public final void setErrorCallback( final ErrorCallback callback ) {
 		m_errorCallback = callback;
+		m_source = getClass().getName();
 	}
 
 	/**
@@ -93,7 +518,9 @@ implements Runnable
 	 * Arguments
 	 */
 	public final void debug( final String format, final Object... args ) {
-		m_errorCallback.debug( format, args );
+		if( m_errorCallback.isEnabled(LogLevel.DEBUG) == true ) {
+			m_errorCallback.debug( m_source, format, args );
+		}
 	}
 
 	/**
@@ -105,7 +532,9 @@ implements Runnable
 	 * Arguments
 	 */
 	public final void info( final String format, final Object... args ) {
-		m_errorCallback.info( format, args );
+		if( m_errorCallback.isEnabled(LogLevel.INFO) == true ) {
+			m_errorCallback.info( m_source, format, args );
+		}
 	}
 
 	/**
@@ -117,7 +546,9 @@ implements Runnable
 	 * Arguments
 	 */
 	public final void warning( final String format, final Object... args ) {
-		m_errorCallback.warning( format, args );
+		if( m_errorCallback.isEnabled(LogLevel.WARNING) == true ) {
+			m_errorCallback.warning( m_source, format, args );
+		}
 	}
 
 	/**
@@ -129,7 +560,19 @@ implements Runnable
 	 * Arguments
 	 */
 	public final void error( final String format, final Object... args ) {
-		m_errorCallback.error( format, args );
+		m_errorCount++;
+		m_errorCallback.error( m_source, format, args );
+	}
+
+	/**
+	 * <p>Report a file written by the test, such as a screenshot that did not
+	 * match its baseline, so that it is linked from the test results.</p>
+	 *
+	 * @param file
+	 * The file.
+	 */
+	public final void artifact( final File file ) {
+		m_errorCallback.artifact( m_source, file );
 	}
 
 
@@ -145,20 +588,42 @@ implements Runnable
 	 * <blockquote><pre>'&lt' <i>tag-name</i> ['#' <i>id</i>] ['.' <i>class-name</i> ['.' <i>class-name</i>] ...] '>'</pre>
 	 * </blockquote>
 	 *
+	 * <p>The element's properties are fetched in a single round trip.  To
+	 * print several elements, use {@link #describe(List)} instead.</p>
+	 *
 	 * @param element
 	 * The elment to print.
 	 * @return
 	 * Returns the formatted element.
 	 */
 	public static final String toString( final WebElement element ) {
+		final List<ElementDescription> descriptionList = describe( Collections.singletonList(element) );
+		final String result = descriptionList.get( 0 ).toString();
+		return( result );
+	}
+
+	/**
+	 * <p>Utility method to pretty-print an element from its tag name, id and
+	 * class attributes, in the form described by
+	 * {@link #toString(WebElement)}.</p>
+	 *
+	 * @param tagName
+	 * The tag name.
+	 * @param idAttribute
+	 * The <code>id</code> attribute, or <code>null</code>.
+	 * @param classNameAttribute
+	 * The <code>class</code> attribute, or <code>null</code>.
+	 * @return
+	 * Returns the formatted element.
+	 */
+	public static final String toString( final String tagName, final String idAttribute,
+			final String classNameAttribute ) {
 		final StringBuilder sb = new StringBuilder();
 		sb.append( "<" );
-		sb.append( element.getTagName() );
-		final String idAttribute = element.getAttribute( "id" );
+		sb.append( tagName );
 		if( idAttribute != null ) {
 			sb.append( "#" + idAttribute );
 		}
-		final String classNameAttribute = element.getAttribute( "class" );
 		if( classNameAttribute != null ) {
 			String[] classNames = classNameAttribute.split( " " );
 			for( String className : classNames ) {
@@ -170,63 +635,419 @@ implements Runnable
 		return( result );
 	}
 
+	/**
+	 * <p>Fetch the tag name, id, classes, text, size and location of all the
+	 * specified elements in a single script call, rather than a round trip
+	 * per property and element.</p>
+	 *
+	 * @param elementList
+	 * The elements to describe.  All elements must belong to the same page.
+	 * @return
+	 * Returns the descriptions, in the same order as the elements.
+	 */
+	public static final List<ElementDescription> describe( final List<WebElement> elementList ) {
+		final List<ElementDescription> result = new ArrayList<ElementDescription>();
+		if( elementList.isEmpty() == true ) {
+			return( result );
+		}
+
+		final WebDriver webDriver = ((WrapsDriver) elementList.get( 0 )).getWrappedDriver();
+		final JavascriptExecutor javascriptExecutor = (JavascriptExecutor) webDriver;
+		final List<?> valueList = (List<?>) javascriptExecutor.executeScript( DESCRIBE_SCRIPT, elementList );
+		for( Object value : valueList ) {
+			final Map<?, ?> map = (Map<?, ?>) value;
+			final Dimension size = new Dimension(
+					((Number) map.get("w")).intValue(), ((Number) map.get("h")).intValue() );
+			final Point location = new Point(
+					((Number) map.get("x")).intValue(), ((Number) map.get("y")).intValue() );
+			result.add( new ElementDescription((String) map.get("t"), (String) map.get("id"),
+					(String) map.get("c"), (String) map.get("text"), size, location) );
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Wait until the page has settled around the specified element: the
+	 * scroll position and the element's layout are stable and no animations
+	 * are running.  This is detected in the page over animation frames by the
+	 * same single script call as the other waits, so it returns as soon as
+	 * the page is stable rather than after a fixed delay.</p>
+	 *
+	 * @param driver
+	 * The web driver.
+	 * @param element
+	 * The element whose layout must be stable.
+	 * @param timeoutMillis
+	 * The maximum time to wait, in milliseconds.
+	 * @return
+	 * Returns <code>true</code> if the page settled, or <code>false</code> if
+	 * the timeout elapsed first.
+	 */
+	public static boolean waitForSettle( final WebDriver driver, final WebElement element,
+			final long timeoutMillis ) {
+		if( element == null ) {
+			throw( new NullPointerException("'element' is null!") );
+		}
+		final Object value = executeWait( driver, "settle", element, null, SETTLE_STABLE_FRAMES, timeoutMillis );
+		return( Boolean.TRUE.equals(value) );
+	}
+
+	/**
+	 * <p>Wait until an element matching the specified CSS selector is
+	 * present in the page.</p>
+	 *
+	 * <p>Like the other waits, this is resolved in the page by a
+	 * <code>MutationObserver</code> in a single asynchronous script call, so
+	 * it returns as soon as the page changes rather than at the next poll,
+	 * and costs no round trips while waiting.</p>
+	 *
+	 * @param driver
+	 * The web driver.
+	 * @param cssSelector
+	 * The CSS selector.
+	 * @param timeoutMillis
+	 * The maximum time to wait, in milliseconds.
+	 * @return
+	 * Returns the first matching element, or <code>null</code> if the timeout
+	 * elapsed first.
+	 */
+	public static WebElement waitForElement( final WebDriver driver, final String cssSelector,
+			final long timeoutMillis ) {
+		if( cssSelector == null ) {
+			throw( new NullPointerException("'cssSelector' is null!") );
+		}
+		final Object value = executeWait( driver, "present", null, cssSelector, 0, timeoutMillis );
+		return( (value instanceof WebElement) ? (WebElement) value : null );
+	}
+
+	/**
+	 * <p>Wait until the rendered text of the specified element has not
+	 * changed for the specified time.</p>
+	 *
+	 * @param driver
+	 * The web driver.
+	 * @param element
+	 * The element, or <code>null</code> for the whole document.
+	 * @param stableMillis
+	 * The time for which the text must not change, in milliseconds.
+	 * @param timeoutMillis
+	 * The maximum time to wait, in milliseconds.
+	 * @return
+	 * Returns <code>true</code> if the text is stable, or <code>false</code>
+	 * if the timeout elapsed first.
+	 */
+	public static boolean waitForTextStable( final WebDriver driver, final WebElement element,
+			final long stableMillis, final long timeoutMillis ) {
+		final Object value = executeWait( driver, "text", element, null, stableMillis, timeoutMillis );
+		return( Boolean.TRUE.equals(value) );
+	}
+
+	/**
+	 * <p>Wait until nothing under the specified element has been mutated
+	 * (added, removed, or changed in attributes or text) for the specified
+	 * time.</p>
+	 *
+	 * @param driver
+	 * The web driver.
+	 * @param element
+	 * The element, or <code>null</code> for the whole document.
+	 * @param quietMillis
+	 * The time for which nothing may be mutated, in milliseconds.
+	 * @param timeoutMillis
+	 * The maximum time to wait, in milliseconds.
+	 * @return
+	 * Returns <code>true</code> if the page is quiet, or <code>false</code>
+	 * if the timeout elapsed first.
+	 */
+	public static boolean waitForQuiet( final WebDriver driver, final WebElement element,
+			final long quietMillis, final long timeoutMillis ) {
+		final Object value = executeWait( driver, "quiet", element, null, quietMillis, timeoutMillis );
+		return( Boolean.TRUE.equals(value) );
+	}
+
+	/**
+	 * <p>Execute {@link #WAIT_SCRIPT} for the specified condition, in a
+	 * single round trip.  The script completes itself when the timeout
+	 * elapses, within the script timeout the session was launched with, so
+	 * that timeout is left as it is.</p>
+	 *
+	 * @return
+	 * Returns the value with which the script completed.
+	 *
+	 * @throws IllegalArgumentException
+	 * This exception is thrown if the timeout exceeds
+	 * {@link #MAXIMUM_WAIT_MILLIS}.
+	 */
+	private static Object executeWait( final WebDriver driver, final String condition, final WebElement element,
+			final String cssSelector, final long quietMillis, final long timeoutMillis ) {
+		if( timeoutMillis > MAXIMUM_WAIT_MILLIS ) {
+			throw( new IllegalArgumentException("'timeoutMillis' exceeds " + MAXIMUM_WAIT_MILLIS + ": "
+					+ timeoutMillis) );
+		}
+		final JavascriptExecutor javascriptExecutor = (JavascriptExecutor) driver;
+		final Object result = javascriptExecutor.executeAsyncScript( WAIT_SCRIPT, condition, element,
+				cssSelector, Long.valueOf(quietMillis), Long.valueOf(timeoutMillis) );
+		return( result );
+	}
+
+	/**
+	 * <p>Get the directory to which screenshots and other artifacts are
+	 * written.  This is the <code>sqs.qa.artifactDir</code> system property
+	 * if set, or <code>~/Downloads</code> otherwise.</p>
+	 *
+	 * @return
+	 * Returns the artifact directory.
+	 */
+	public static File getArtifactDirectory() {
+		final String artifactDirectoryPath = System.getProperty( ARTIFACT_DIRECTORY_PROPERTY,
+				System.getProperty("user.home") + "/Downloads" );
+		final File result = new File( artifactDirectoryPath );
+		return( result );
+	}
+
 	/**
 	 * <p>Capture a screenshot of the specified element, scrolling to it as
-	 * necessary.</p>
+	 * necessary, and write it to the artifact directory.</p>
+	 *
+	 * <p>The screenshot is transferred, decoded and cropped in memory; the
+	 * only file written is the cropped image.</p>
 	 *
 	 * @param driver
 	 * The web driver.
 	 * @param element
 	 * The element to screenshot.
 	 * @param filename
-	 * The output filename.
+	 * The output filename, relative to the artifact directory.
 	 * @param replaceFile
 	 * Specifies whether to replace an existing file (<code>true</code>) or
 	 * leave it untouched (<code>false</code>).
+	 * @return
+	 * Returns the cropped image.
 	 *
 	 * @throws IOException
 	 * This exception is thrown if an I/O error occurs.
 	 */
-	public static void captureScreenshot( final WebDriver driver, final WebElement element,
+	public static BufferedImage captureScreenshot( final WebDriver driver, final WebElement element,
 			final String filename, final boolean replaceFile )
 	throws IOException {
 		// Check first for an existing file
-		final String destinationPath = System.getProperty("user.home") + "/Downloads/" + filename;
-		final File destinationFile = new File( destinationPath );
-		if( (destinationFile.exists() == true)
-				&& (replaceFile == false) ) {
-			final String msg = String.format( "Cannot replace existing file: %s", destinationFile );
-			throw( new IOException(msg) );
-		}
+		final File destinationFile = getDestinationFile( filename, replaceFile );
 
 		// Scroll to the element
 		final JavascriptExecutor javascriptExecutor = (JavascriptExecutor) driver;
 		javascriptExecutor.executeScript( "arguments[0].scrollIntoView(true);", element );
 		javascriptExecutor.executeScript( "document.body.style.zoom='50%';", element );	// Does not work for IE
 
-		// Wait a short amount of time to complete the scroll before taking the screenshot
-		try {
-			Thread.sleep(500);
-		} catch( InterruptedException interruptedException ) {
-			// Ignore
-		}
+		// Wait for the scroll and zoom to complete before taking the screenshot.
+		// If the page does not settle in time, capture it anyway.
+		waitForSettle( driver, element, SETTLE_TIMEOUT_MILLIS );
 
 		final Point location = element.getLocation();
 		final Dimension size = element.getSize();
 
 		final TakesScreenshot takesScreenshot = (TakesScreenshot) driver;
-		final File screenshotFile = takesScreenshot.getScreenshotAs( OutputType.FILE );
-		final BufferedImage fullBufferedImage = ImageIO.read( screenshotFile );
+		final byte[] screenshotBytes = takesScreenshot.getScreenshotAs( OutputType.BYTES );
+		final BufferedImage croppedBufferedImage = decodeAndCrop( screenshotBytes,
+				new Rectangle(location.x, location.y, size.width, size.height) );
 
-		final BufferedImage croppedBufferedImage =
-				fullBufferedImage.getSubimage( location.x, location.y, size.width, size.height );
-		ImageIO.write( croppedBufferedImage, "png", screenshotFile );
+		writeImage( croppedBufferedImage, destinationFile );
+		return( croppedBufferedImage );
+	}
 
-		if( (destinationFile.exists() == true)
-				&& (replaceFile == true) ) {
-			FileUtils.deleteQuietly( destinationFile );
+	/**
+	 * <p>Capture a screenshot of only the specified element and write it to
+	 * the artifact directory.</p>
+	 *
+	 * @param driver
+	 * The web driver.  This must be (or wrap) a Chrome driver.
+	 * @param element
+	 * The element to screenshot.
+	 * @param filename
+	 * The output filename, relative to the artifact directory.
+	 * @param replaceFile
+	 * Specifies whether to replace an existing file (<code>true</code>) or
+	 * leave it untouched (<code>false</code>).
+	 * @return
+	 * Returns the element image.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if an I/O error occurs.
+	 *
+	 * @see #captureElementScreenshot(WebDriver, WebElement)
+	 */
+	public static BufferedImage captureElementScreenshot( final WebDriver driver, final WebElement element,
+			final String filename, final boolean replaceFile )
+	throws IOException {
+		// Check first for an existing file
+		final File destinationFile = getDestinationFile( filename, replaceFile );
+
+		final byte[] screenshotBytes = captureElementScreenshot( driver, element );
+		final ImageInputStream imageInputStream =
+				new MemoryCacheImageInputStream( new ByteArrayInputStream(screenshotBytes) );
+		final BufferedImage elementBufferedImage = ImageIO.read( imageInputStream );
+		if( elementBufferedImage == null ) {
+			throw( new IOException("Cannot decode screenshot") );
 		}
 
-		FileUtils.copyFile( screenshotFile, destinationFile );
+		// Chrome's encoding is already PNG; write it as is
+		writeArtifact( destinationFile, screenshotBytes );
+		return( elementBufferedImage );
+	}
+
+	/**
+	 * <p>Capture a screenshot of only the specified element.</p>
+	 *
+	 * <p>Unlike {@link #captureScreenshot(WebDriver, WebElement, String, boolean)},
+	 * this asks Chrome (through the DevTools <code>Page.captureScreenshot</code>
+	 * command) to render, encode and transfer only the element's bounding
+	 * box, which may lie outside the viewport.  The page is zoomed in the same
+	 * way, so the resulting images are comparable.</p>
+	 *
+	 * @param driver
+	 * The web driver.  This must be (or wrap) a Chrome driver.
+	 * @param element
+	 * The element to screenshot.
+	 * @return
+	 * Returns the PNG-encoded element image, as produced by Chrome.
+	 */
+	public static byte[] captureElementScreenshot( final WebDriver driver, final WebElement element ) {
+		final JavascriptExecutor javascriptExecutor = (JavascriptExecutor) driver;
+		javascriptExecutor.executeScript( "document.body.style.zoom='50%';", element );	// Does not work for IE
+		waitForSettle( driver, element, SETTLE_TIMEOUT_MILLIS );
+
+		// Measure the element after zooming, in document coordinates
+		final Map<?, ?> rect = (Map<?, ?>) javascriptExecutor.executeScript( ELEMENT_RECT_SCRIPT, element );
+		final Map<String, Object> clip = new HashMap<String, Object>();
+		clip.put( "x", rect.get("x") );
+		clip.put( "y", rect.get("y") );
+		clip.put( "width", rect.get("width") );
+		clip.put( "height", rect.get("height") );
+		clip.put( "scale", Integer.valueOf(1) );
+
+		final Map<String, Object> parameters = new HashMap<String, Object>();
+		parameters.put( "format", "png" );
+		parameters.put( "clip", clip );
+		parameters.put( "captureBeyondViewport", Boolean.TRUE );
+		final Map<String, Object> response = DevTools.execute( driver, "Page.captureScreenshot", parameters );
+		final byte[] result = Base64.getDecoder().decode( (String) response.get("data") );
+		return( result );
+	}
+
+	/**
+	 * <p>Write already encoded content to a file in the artifact
+	 * directory.</p>
+	 *
+	 * @param filename
+	 * The filename, relative to the artifact directory.
+	 * @param content
+	 * The content.
+	 * @return
+	 * Returns the file written.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if an I/O error occurs.
+	 */
+	public static File writeArtifact( final String filename, final byte[] content )
+	throws IOException {
+		final File result = getDestinationFile( filename, true );
+		writeArtifact( result, content );
+		return( result );
+	}
+
+	/**
+	 * <p>Resolve an artifact filename, checking whether it may be
+	 * written.</p>
+	 *
+	 * @param filename
+	 * The filename, relative to the artifact directory.
+	 * @param replaceFile
+	 * Specifies whether an existing file may be replaced.
+	 * @return
+	 * Returns the file.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the file exists and may not be replaced.
+	 */
+	private static File getDestinationFile( final String filename, final boolean replaceFile )
+	throws IOException {
+		final File result = new File( getArtifactDirectory(), filename );
+		if( (result.exists() == true)
+				&& (replaceFile == false) ) {
+			final String msg = String.format( "Cannot replace existing file: %s", result );
+			throw( new IOException(msg) );
+		}
+		return( result );
+	}
+
+	private static void writeArtifact( final File destinationFile, final byte[] content )
+	throws IOException {
+		final File destinationDirectory = destinationFile.getParentFile();
+		if( (destinationDirectory.isDirectory() == false)
+				&& (destinationDirectory.mkdirs() == false) ) {
+			throw( new IOException("Cannot create directory: " + destinationDirectory) );
+		}
+		Files.write( destinationFile.toPath(), content );
+	}
+
+	/**
+	 * <p>Encode an image as PNG directly to the specified file, creating its
+	 * directory as necessary.</p>
+	 *
+	 * @param bufferedImage
+	 * The image.
+	 * @param destinationFile
+	 * The file.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if an I/O error occurs.
+	 */
+	private static void writeImage( final BufferedImage bufferedImage, final File destinationFile )
+	throws IOException {
+		final File destinationDirectory = destinationFile.getParentFile();
+		if( (destinationDirectory.isDirectory() == false)
+				&& (destinationDirectory.mkdirs() == false) ) {
+			throw( new IOException("Cannot create directory: " + destinationDirectory) );
+		}
+		if( ImageIO.write(bufferedImage, "png", destinationFile) == false ) {
+			throw( new IOException("No PNG writer available") );
+		}
+	}
+
+	/**
+	 * <p>Decode a PNG screenshot and crop it to the specified area, which is
+	 * clipped to the bounds of the screenshot.</p>
+	 *
+	 * @param screenshotBytes
+	 * The encoded screenshot.
+	 * @param area
+	 * The area to keep.
+	 * @return
+	 * Returns the cropped image.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the screenshot cannot be decoded or the
+	 * area lies outside it.
+	 */
+	public static BufferedImage decodeAndCrop( final byte[] screenshotBytes, final Rectangle area )
+	throws IOException {
+		// Use a memory cache; ImageIO otherwise buffers streams in a temporary file
+		final ImageInputStream imageInputStream =
+				new MemoryCacheImageInputStream( new ByteArrayInputStream(screenshotBytes) );
+		final BufferedImage fullBufferedImage = ImageIO.read( imageInputStream );
+		if( fullBufferedImage == null ) {
+			throw( new IOException("Cannot decode screenshot") );
+		}
+
+		final Rectangle imageBounds =
+				new Rectangle( 0, 0, fullBufferedImage.getWidth(), fullBufferedImage.getHeight() );
+		final Rectangle cropBounds = imageBounds.intersection( area );
+		if( cropBounds.isEmpty() == true ) {
+			final String msg = String.format( "Area %s lies outside the screenshot %s", area, imageBounds );
+			throw( new IOException(msg) );
+		}
+
+		final BufferedImage result = fullBufferedImage.getSubimage(
+				cropBounds.x, cropBounds.y, cropBounds.width, cropBounds.height );
+		return( result );
 	}
 }
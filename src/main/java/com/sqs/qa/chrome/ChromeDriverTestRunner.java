@@ -8,8 +8,27 @@
 
 package com.sqs.qa.chrome;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -18,29 +37,80 @@ import java.lang.reflect.InvocationTargetException;
  * @author Michael Gaugy (mgaugy@yahoo.com)
  */
 public final class ChromeDriverTestRunner
-implements Runnable, ErrorCallback
+implements Runnable
 {
 	//
 	// Constants
 	//
 
 	/**
-	 * <p>The list of tests to execute.</p>
+	 * <p>System property specifying the number of tests to execute
+	 * concurrently.</p>
 	 */
-	private static final Class<?>[] TEST_CLASSES = {
-		LeftColumnButtonWidthTest.class,
-		LeftColumnButtonStringCharactersTest.class,
-		LeftColumnButtonDuplicatedStringTest.class,
-		LeftColumnAlertButtonsTest.class,
-		LeftColumnSuccessButtonsTest.class,
+	private static final String WORKER_COUNT_PROPERTY = "sqs.qa.workers";
 
-		TableColumnCountTest.class,
-		TableColumn3TextTest.class,
-		TableActionLinksTest.class,
+	/**
+	 * <p>System property specifying the lowest {@link LogLevel} that is
+	 * reported.</p>
+	 */
+	private static final String LOG_LEVEL_PROPERTY = "sqs.qa.logLevel";
+
+	/**
+	 * <p>System property specifying a file to which to write a JUnit XML
+	 * report.</p>
+	 */
+	static final String JUNIT_XML_FILE_PROPERTY = "sqs.qa.junitXml";
+
+	/**
+	 * <p>System property specifying a file to which to write the test events
+	 * as JSON Lines.  The value <code>-</code> writes them to standard
+	 * output, in which case the console output goes to standard error.</p>
+	 */
+	static final String JSONL_FILE_PROPERTY = "sqs.qa.jsonl";
+
+	/**
+	 * <p>The {@link #JSONL_FILE_PROPERTY} value selecting standard
+	 * output.</p>
+	 */
+	static final String STANDARD_OUTPUT_PATH = "-";
+
+	/**
+	 * <p>System property selecting the share of the tests to execute, as
+	 * <code><i>index</i>/<i>count</i></code> with a zero-based index.</p>
+	 */
+	static final String SHARD_PROPERTY = "sqs.qa.shard";
+
+	/**
+	 * <p>System property listing, comma-separated, the class names of the
+	 * tests to execute, as assigned to a worker process by a
+	 * {@link ShardCoordinator}.</p>
+	 */
+	static final String TESTS_PROPERTY = "sqs.qa.tests";
+
+	/**
+	 * <p>System property listing, comma-separated, the tags of the tests to
+	 * execute (see {@link ChromeTest#tags()}).  A page name selects the tests
+	 * of that page.  By default, all tests are executed.</p>
+	 */
+	private static final String TAGS_PROPERTY = "sqs.qa.tags";
+
+	/**
+	 * <p>System property specifying the number of worker processes among
+	 * which to shard the tests.</p>
+	 */
+	static final String PROCESS_COUNT_PROPERTY = "sqs.qa.processes";
+
+	/**
+	 * <p>Command-line option merging the JSON Lines event streams of shards
+	 * executed separately, such as on other hosts.</p>
+	 */
+	private static final String MERGE_OPTION = "--merge";
 
-		CanvasSizeTest.class,
-		CanvasScreenshotTest.class,
-	};
+	/**
+	 * <p>System property specifying the number of times to execute each
+	 * test.</p>
+	 */
+	static final String REPEAT_COUNT_PROPERTY = "sqs.qa.repeat";
 
 
 	//
@@ -52,9 +122,47 @@ implements Runnable, ErrorCallback
 	 */
 	private final String m_url;
 
-	private int m_errorCount;
+	/**
+	 * <p>The tests to execute.</p>
+	 */
+	private final List<TestDescriptor> m_testList;
+
+	/**
+	 * <p>The number of tests to execute concurrently.</p>
+	 */
+	private final int m_workerCount;
+
+	/**
+	 * <p>The pool of web drivers shared by all tests.</p>
+	 */
+	private final ChromeDriverPool m_webDriverPool;
+
+	/**
+	 * <p>The lowest level of test messages that are reported.</p>
+	 */
+	private final LogLevel m_logLevel;
+
+	/**
+	 * <p>The number of times to execute each test.</p>
+	 */
+	private final int m_repeatCount;
+
+	/**
+	 * <p>The local server standing in for the site, or <code>null</code> to
+	 * use the site directly.</p>
+	 */
+	private final FixtureServer m_fixtureServer;
+
+	/**
+	 * <p>The expected test durations by which tests are scheduled.</p>
+	 */
+	private final DurationHistory m_durationHistory;
 
-	private boolean m_allowDebug;
+	/**
+	 * <p>The cache of previous passes, or <code>null</code> to always execute
+	 * the checks.</p>
+	 */
+	private final ResultCache m_resultCache;
 
 
 	//
@@ -67,11 +175,42 @@ implements Runnable, ErrorCallback
 	 *
 	 * @param url
 	 * The URL for which to perform the tests.
+	 * @param testList
+	 * The tests to execute.
+	 * @param workerCount
+	 * The number of tests to execute concurrently.  A value of 1 executes the
+	 * tests serially.
+	 * @param logLevel
+	 * The lowest level of test messages that are reported.
+	 * @param repeatCount
+	 * The number of times to execute each test.
+	 * @param fixtureServer
+	 * The local server standing in for the site, or <code>null</code>.
+	 * @param durationHistory
+	 * The expected test durations by which tests are scheduled.
+	 * @param resultCache
+	 * The cache of previous passes, or <code>null</code>.
 	 */
-	private ChromeDriverTestRunner( final String url  ) {
+	private ChromeDriverTestRunner( final String url, final List<TestDescriptor> testList, final int workerCount,
+			final LogLevel logLevel, final int repeatCount, final FixtureServer fixtureServer,
+			final DurationHistory durationHistory, final ResultCache resultCache ) {
 		super();
-		m_allowDebug = true;
+
+		if( workerCount < 1 ) {
+			throw( new IllegalArgumentException("'workerCount' must be at least 1: " + workerCount) );
+		} else if( repeatCount < 1 ) {
+			throw( new IllegalArgumentException("'repeatCount' must be at least 1: " + repeatCount) );
+		}
+
+		m_logLevel = logLevel;
 		m_url = url;
+		m_testList = testList;
+		m_workerCount = workerCount;
+		m_repeatCount = repeatCount;
+		m_fixtureServer = fixtureServer;
+		m_durationHistory = durationHistory;
+		m_resultCache = resultCache;
+		m_webDriverPool = new ChromeDriverPool( workerCount );
 	}
 
 
@@ -79,136 +218,478 @@ implements Runnable, ErrorCallback
 	// Instance methos
 	//
 
-	private static final String SEPARATOR_LINE =
-			"--------------------------------------------------------------------------------";
 	/**
 	 * <p>Execute all the test cases.</p>
+	 *
+	 * <p>Tests are submitted to a fixed pool of worker threads.  Each test
+	 * writes to its own {@link TestOutput}, which is published in submission
+	 * order once the test completes, so the output and the totals are the
+	 * same whether the tests execute serially or in parallel.  Output is
+	 * formatted and written by an {@link AsyncLogWriter}.</p>
+	 *
+	 * <p>The {@link TestEvent}s of each test are streamed to the console and
+	 * to any report files as the test's output is published; nothing is
+	 * retained once a test has been reported.</p>
+	 *
+	 * <p>The tests expected to take longest, according to the
+	 * {@link DurationHistory}, are submitted first, whether or not they
+	 * modify the page, so that the suite does not end waiting for a slow
+	 * test that started last.</p>
 	 */
 	@Override
 	public void run() {
-		for( Class<?> testClass : TEST_CLASSES ) {
-			System.out.println( "\n" + SEPARATOR_LINE );
+		String testUrl = m_url;
+		if( m_fixtureServer != null ) {
+			try {
+				m_fixtureServer.start();
+			} catch( IOException ioException ) {
+				ioException.printStackTrace();
+				return;
+			}
+			testUrl = m_fixtureServer.rewrite( m_url );
+		}
+
+		// A test that modifies the page takes its turn like any other; its
+		// page is reloaded before the next test uses the session
+		final List<ChromeDriverTest> testList = new ArrayList<ChromeDriverTest>();
+		for( TestDescriptor descriptor : sortLongestFirst(m_testList, m_durationHistory) ) {
+			for( int i = 0; i < m_repeatCount; i++ ) {
+				final ChromeDriverTest testInstance = createTest( descriptor, testUrl );
+				if( testInstance != null ) {
+					testList.add( testInstance );
+				}
+			}
+		}
+
+		final long suiteStartNanos = System.nanoTime();
+		final AsyncLogWriter logWriter = new AsyncLogWriter( getConsole(), AsyncLogWriter.DEFAULT_CAPACITY );
+		// Shards are recorded by whichever process merges their results
+		final boolean shard = (System.getProperty(TESTS_PROPERTY) != null)
+				|| (System.getProperty(SHARD_PROPERTY) != null);
+		final List<TestEventSink> sinkList = createSinks( logWriter, (shard == false) ? m_durationHistory : null );
+		dispatch( sinkList, TestEvent.suiteStarted(getClass().getName()) );
+
+		final ExecutorService executorService = Executors.newFixedThreadPool( m_workerCount );
+		final Queue<Future<TestOutput>> futureQueue = new ArrayDeque<Future<TestOutput>>();
+		for( final ChromeDriverTest testInstance : testList ) {
+			final TestOutput testOutput = new TestOutput( testInstance.getClass().getName(), m_logLevel );
+			testInstance.setErrorCallback( testOutput );
+			testInstance.setWebDriverPool( m_webDriverPool );
+			testInstance.setResultCache( m_resultCache );
+			futureQueue.add( executorService.submit(new Callable<TestOutput>() {
+				@Override
+				public TestOutput call() {
+					testOutput.started();
+					try {
+						testInstance.run();
+					} catch( RuntimeException runtimeException ) {
+						testOutput.exception( runtimeException );
+					}
+					testOutput.finished( testInstance.getPhaseTimings(), testInstance.isResultReused() );
+					return( testOutput );
+				}
+			}) );
+		}
+		executorService.shutdown();
+
+		int testCount = 0;
+		int errorCount = 0;
+		while( futureQueue.isEmpty() == false ) {
+			final Future<TestOutput> future = futureQueue.remove();
+			logWriter.publish( LogMessage.line("\n" + ConsoleEventSink.SEPARATOR_LINE) );
 			try {
-				final Constructor<?> constructor = testClass.getConstructor( String.class );
-				final ChromeDriverTest testInstance = (ChromeDriverTest) constructor.newInstance( m_url );
-				testInstance.setErrorCallback( this );
-				final Thread thread = new Thread( testInstance );
-				thread.start();
-				thread.join();
-			} catch( NoSuchMethodException noSuchMethodException ) {
-				noSuchMethodException.printStackTrace();
-			} catch( SecurityException securityException ) {
-				securityException.printStackTrace();
-			} catch( InstantiationException instantiationException ) {
-				instantiationException.printStackTrace();
-			} catch( IllegalAccessException illegalAccessException ) {
-				illegalAccessException.printStackTrace();
-			} catch( IllegalArgumentException illegalArgumentException ) {
-				illegalArgumentException.printStackTrace();
-			} catch( InvocationTargetException invocationTargetException ) {
-				invocationTargetException.printStackTrace();
+				final TestOutput testOutput = future.get();
+				testOutput.publishTo( logWriter );
+				for( TestEvent event : testOutput.getEvents() ) {
+					dispatch( sinkList, event );
+				}
+				testCount++;
+				errorCount += testOutput.getErrorCount();
+			} catch( ExecutionException executionException ) {
+				// Terminated by an Error; its output is lost, but not the test
+				executionException.printStackTrace();
+				testCount++;
+				errorCount++;
 			} catch( InterruptedException interruptedException ) {
-				// Ignored
+				Thread.currentThread().interrupt();
+				break;
 			}
 		}
 
-		System.out.println( SEPARATOR_LINE );
-		System.out.format( "\n%d tests, %d errors\n", TEST_CLASSES.length, m_errorCount );
-		System.out.println( SEPARATOR_LINE );
+		m_webDriverPool.shutdown();
+		if( m_webDriverPool.getLaunchProfile().isBlocking() == true ) {
+			logWriter.publish( LogMessage.line(String.format("\nLaunch profile %s: %d requests blocked",
+					m_webDriverPool.getLaunchProfile().getName(), m_webDriverPool.getBlockedRequestCount())) );
+		}
+		if( m_webDriverPool.getDriverServiceRestartCount() > 0 ) {
+			logWriter.publish( LogMessage.line(String.format("\nchromedriver died and was restarted %d times",
+					m_webDriverPool.getDriverServiceRestartCount())) );
+		}
+		if( m_resultCache != null ) {
+			if( m_resultCache.getReuseCount() > 0 ) {
+				logWriter.publish( LogMessage.line(String.format("\n%d passes reused from the result cache",
+						m_resultCache.getReuseCount())) );
+			}
+			try {
+				m_resultCache.close();
+			} catch( IOException ioException ) {
+				ioException.printStackTrace();
+			}
+		}
+		if( m_fixtureServer != null ) {
+			try {
+				m_fixtureServer.stop();
+			} catch( IOException ioException ) {
+				ioException.printStackTrace();
+			}
+		}
+
+		final long suiteDurationMillis = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - suiteStartNanos );
+		dispatch( sinkList, TestEvent.suiteFinished(getClass().getName(), suiteDurationMillis, testCount, errorCount) );
+		for( TestEventSink sink : sinkList ) {
+			try {
+				sink.close();
+			} catch( IOException ioException ) {
+				ioException.printStackTrace();
+			}
+		}
+
+		try {
+			logWriter.close();
+		} catch( InterruptedException interruptedException ) {
+			Thread.currentThread().interrupt();
+		}
 	}
 
+
+	//
+	// Class methods
+	//
+
 	/**
-	 * <p>Issue a debug message.</p>
+	 * <p>Main entry point.</p>
+	 *
+	 * <p>The number of tests to execute concurrently is read from the
+	 * <code>sqs.qa.workers</code> system property and defaults to 1.  The
+	 * lowest level of messages reported is read from the
+	 * <code>sqs.qa.logLevel</code> system property and defaults to
+	 * <code>DEBUG</code>.  A JUnit XML report and a JSON Lines event stream
+	 * are written to the files named by the <code>sqs.qa.junitXml</code> and
+	 * <code>sqs.qa.jsonl</code> system properties, if set.  Each test is
+	 * executed the number of times given by the <code>sqs.qa.repeat</code>
+	 * system property, which defaults to 1.  Setting the
+	 * <code>sqs.qa.fixtureMode</code> system property to <code>record</code>
+	 * or <code>replay</code> puts a {@link FixtureServer} in front of the
+	 * site.</p>
+	 *
+	 * <p>Setting the <code>sqs.qa.processes</code> system property to more
+	 * than 1 shards the tests among that many worker processes, whose results
+	 * are merged into a single report by a {@link ShardCoordinator}.  A
+	 * single shard is executed by setting the <code>sqs.qa.shard</code>
+	 * system property instead, such as on each of several hosts; the event
+	 * streams of the shards are merged with
+	 * <code>--merge <i>file</i>...</code>.</p>
+	 *
+	 * <p>Test durations are recorded in the {@link DurationHistory} file
+	 * given by the <code>sqs.qa.durationHistory</code> system property, and
+	 * used to schedule the next run.</p>
 	 *
-	 * @param format
-	 * The format string.
 	 * @param args
-	 * Arguments
+	 * Command-line arguments.
 	 */
-	@Override
-	public final void debug( final String format, final Object... args ) {
-		if( m_allowDebug == true ) {
-			String className = getCallstackClassName( 3 );
-			System.out.format( className + ": DEBUG: " + format + "\n", args );
+	public static final void main( String[] args ) {
+		final DurationHistory durationHistory = DurationHistory.loadDefault();
+		final Runnable runnable;
+		if( (args.length > 0)
+				&& (args[0].equals(MERGE_OPTION) == true) ) {
+			final List<File> fileList = new ArrayList<File>();
+			for( int i = 1; i < args.length; i++ ) {
+				fileList.add( new File(args[i]) );
+			}
+			runnable = ShardCoordinator.merging( fileList, durationHistory );
+		} else {
+			final String url = "https://the-internet.herokuapp.com/challenging_dom";
+			final int processCount = Integer.getInteger( PROCESS_COUNT_PROPERTY, 1 ).intValue();
+			final FixtureServer fixtureServer = FixtureServer.fromProperties( url );
+			if( processCount > 1 ) {
+				if( (fixtureServer != null)
+						&& (fixtureServer.getMode() == FixtureServer.Mode.RECORD) ) {
+					// Every worker would write the same archive
+					throw( new IllegalStateException("Fixtures must be recorded by a single process") );
+				}
+				runnable = ShardCoordinator.spawning( partition(processCount, durationHistory), durationHistory );
+			} else {
+				final int workerCount = Integer.getInteger( WORKER_COUNT_PROPERTY, 1 ).intValue();
+				final LogLevel logLevel = LogLevel.valueOf(
+						System.getProperty(LOG_LEVEL_PROPERTY, LogLevel.DEBUG.name()) );
+				final int repeatCount = Integer.getInteger( REPEAT_COUNT_PROPERTY, 1 ).intValue();
+				final String testNames = System.getProperty( TESTS_PROPERTY );
+				final List<TestDescriptor> testList = (testNames != null)
+						? forNames( testNames )
+						: selectShard( selectTests(), System.getProperty(SHARD_PROPERTY) );
+				// Repeated tests are meant to be executed every time
+				final ResultCache resultCache = (repeatCount == 1) ? ResultCache.loadDefault() : null;
+				runnable = new ChromeDriverTestRunner( url, testList, workerCount, logLevel, repeatCount,
+						fixtureServer, durationHistory, resultCache );
+			}
 		}
+		final Thread testRunnerThread = new Thread( runnable );
+		testRunnerThread.start();
 	}
 
 	/**
-	 * <p>Issue an informative message.</p>
+	 * <p>Partition the tests among the specified number of shards, so that
+	 * the shards are expected to take about the same time.  Tests are taken
+	 * longest first and each is added to the shard with the least expected
+	 * time so far.</p>
 	 *
-	 * @param format
-	 * The format string.
-	 * @param args
-	 * Arguments
+	 * @param shardCount
+	 * The number of shards.
+	 * @param durationHistory
+	 * The expected test durations.
+	 * @return
+	 * Returns the tests of each shard, some of which may be empty.
 	 */
-	@Override
-	public final void info( final String format, final Object... args ) {
-		String className = getCallstackClassName( 3 );
-		System.out.format( className + ": INFO: " + format + "\n", args );
+	static List<List<TestDescriptor>> partition( final int shardCount, final DurationHistory durationHistory ) {
+		final List<List<TestDescriptor>> result = new ArrayList<List<TestDescriptor>>();
+		final long[] shardMillis = new long[shardCount];
+		for( int i = 0; i < shardCount; i++ ) {
+			result.add( new ArrayList<TestDescriptor>() );
+		}
+		for( TestDescriptor descriptor : sortLongestFirst(selectTests(), durationHistory) ) {
+			int shortestIndex = 0;
+			for( int i = 1; i < shardCount; i++ ) {
+				if( shardMillis[i] < shardMillis[shortestIndex] ) {
+					shortestIndex = i;
+				}
+			}
+			result.get( shortestIndex ).add( descriptor );
+			shardMillis[shortestIndex] += durationHistory.getEstimateMillis( descriptor.getName(),
+					descriptor.getExpectedMillis() );
+		}
+		return( result );
 	}
 
 	/**
-	 * <p>Issue a warning message.</p>
+	 * <p>Select the share of the tests belonging to a shard.  Tests are dealt
+	 * to the shards in turn, so each shard gets a similar mix.  Unlike
+	 * {@link #partition(int, DurationHistory)}, this does not depend on the
+	 * history, so separately started shards agree on their shares.</p>
 	 *
-	 * @param format
-	 * The format string.
-	 * @param args
-	 * Arguments
+	 * @param testList
+	 * All tests.
+	 * @param shard
+	 * The shard, as <code><i>index</i>/<i>count</i></code>, or
+	 * <code>null</code> for all tests.
+	 * @return
+	 * Returns the tests of the shard.
+	 *
+	 * @throws IllegalArgumentException
+	 * This exception is thrown if the shard is malformed.
 	 */
-	@Override
-	public final void warning( final String format, final Object... args ) {
-		String className = getCallstackClassName( 3 );
-		System.out.format( className + ": WARNING: " + format + "\n", args );
+	static List<TestDescriptor> selectShard( final List<TestDescriptor> testList, final String shard ) {
+		if( shard == null ) {
+			return( testList );
+		}
+		final int separatorIndex = shard.indexOf( '/' );
+		final int shardIndex;
+		final int shardCount;
+		try {
+			shardIndex = Integer.parseInt( shard.substring(0, Math.max(separatorIndex, 0)) );
+			shardCount = Integer.parseInt( shard.substring(separatorIndex + 1) );
+		} catch( NumberFormatException numberFormatException ) {
+			throw( new IllegalArgumentException("Malformed shard: " + shard) );
+		}
+		if( (shardIndex < 0)
+				|| (shardIndex >= shardCount) ) {
+			throw( new IllegalArgumentException("Malformed shard: " + shard) );
+		}
+
+		final List<TestDescriptor> result = new ArrayList<TestDescriptor>();
+		for( int i = shardIndex; i < testList.size(); i += shardCount ) {
+			result.add( testList.get(i) );
+		}
+		return( result );
 	}
 
 	/**
-	 * <p>Issue an error message.</p>
+	 * <p>Select the tests given by the <code>sqs.qa.tags</code> system
+	 * property, in {@link ChromeTestIndex} order.</p>
 	 *
-	 * @param format
-	 * The format string.
-	 * @param args
-	 * Arguments
+	 * @return
+	 * Returns the tests.
 	 */
-	@Override
-	public final void error( final String format, final Object... args ) {
-		String className = getCallstackClassName( 3 );
-		System.out.format( className + ": ERROR: " + format + "\n", args );
-		m_errorCount++;
+	private static List<TestDescriptor> selectTests() {
+		final String tagNames = System.getProperty( TAGS_PROPERTY );
+		if( tagNames == null ) {
+			return( ChromeTestIndex.getTests() );
+		}
+		final List<String> tagList = new ArrayList<String>();
+		for( String tag : tagNames.split(",") ) {
+			if( tag.trim().length() > 0 ) {
+				tagList.add( tag.trim() );
+			}
+		}
+		final List<TestDescriptor> result = new ArrayList<TestDescriptor>();
+		for( TestDescriptor descriptor : ChromeTestIndex.getTests() ) {
+			if( descriptor.matches(tagList) == true ) {
+				result.add( descriptor );
+			}
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Look up the tests listed by class name in the
+	 * {@link ChromeTestIndex}.</p>
+	 *
+	 * @param testNames
+	 * The class names, comma-separated.
+	 * @return
+	 * Returns the tests.
+	 *
+	 * @throws IllegalArgumentException
+	 * This exception is thrown if a test is not in the index.
+	 */
+	private static List<TestDescriptor> forNames( final String testNames ) {
+		final Map<String, TestDescriptor> descriptorMap = new HashMap<String, TestDescriptor>();
+		for( TestDescriptor descriptor : ChromeTestIndex.getTests() ) {
+			descriptorMap.put( descriptor.getName(), descriptor );
+		}
+		final List<TestDescriptor> result = new ArrayList<TestDescriptor>();
+		for( String testName : testNames.split(",") ) {
+			if( testName.length() == 0 ) {
+				continue;
+			}
+			final TestDescriptor descriptor = descriptorMap.get( testName );
+			if( descriptor == null ) {
+				throw( new IllegalArgumentException("Unknown test: " + testName) );
+			}
+			result.add( descriptor );
+		}
+		return( result );
 	}
 
+	/**
+	 * <p>Order tests by expected duration, longest first.  Tests with equal
+	 * estimates keep their order.</p>
+	 *
+	 * @param testList
+	 * The tests.
+	 * @param durationHistory
+	 * The expected test durations.
+	 * @return
+	 * Returns a sorted copy of the tests.
+	 */
+	private static List<TestDescriptor> sortLongestFirst( final List<TestDescriptor> testList,
+			final DurationHistory durationHistory ) {
+		final List<TestDescriptor> result = new ArrayList<TestDescriptor>( testList );
+		Collections.sort( result, new Comparator<TestDescriptor>() {
+			@Override
+			public int compare( final TestDescriptor descriptor1, final TestDescriptor descriptor2 ) {
+				return( Long.compare(
+						durationHistory.getEstimateMillis(descriptor2.getName(), descriptor2.getExpectedMillis()),
+						durationHistory.getEstimateMillis(descriptor1.getName(), descriptor1.getExpectedMillis())) );
+			}
+		} );
+		return( result );
+	}
 
-	//
-	// Class methods
-	//
+	/**
+	 * <p>Get the stream to which console output is written: standard output,
+	 * unless the events are written there.</p>
+	 *
+	 * @return
+	 * Returns the stream.
+	 */
+	static PrintStream getConsole() {
+		return( STANDARD_OUTPUT_PATH.equals(System.getProperty(JSONL_FILE_PROPERTY)) ? System.err : System.out );
+	}
 
 	/**
-	 * <p>Main entry point.</p>
+	 * <p>Create the event sinks: the console, the report files requested
+	 * by system properties and the duration history.</p>
 	 *
-	 * @param args
-	 * Command-line arguments.
+	 * @param logWriter
+	 * The console writer.
+	 * @param durationHistory
+	 * The duration history in which to record the tests, or
+	 * <code>null</code> if none.
+	 * @return
+	 * Returns the sinks.
 	 */
-	public static final void main( String[] args ) {
-		final String url = "https://the-internet.herokuapp.com/challenging_dom";
-		final ChromeDriverTestRunner testRunner = new ChromeDriverTestRunner( url );
-		final Thread testRunnerThread = new Thread( testRunner );
-		testRunnerThread.start();
+	static List<TestEventSink> createSinks( final AsyncLogWriter logWriter, final DurationHistory durationHistory ) {
+		final List<TestEventSink> result = new ArrayList<TestEventSink>();
+		// The phase breakdown is printed before the console totals
+		result.add( new PhaseTimingSink(logWriter) );
+		result.add( new ConsoleEventSink(logWriter) );
+		try {
+			final String junitXmlPath = System.getProperty( JUNIT_XML_FILE_PROPERTY );
+			if( junitXmlPath != null ) {
+				result.add( new JUnitXmlEventSink(openWriter(junitXmlPath)) );
+			}
+			final String jsonlPath = System.getProperty( JSONL_FILE_PROPERTY );
+			if( jsonlPath != null ) {
+				result.add( new JsonlEventSink(openWriter(jsonlPath)) );
+			}
+		} catch( IOException ioException ) {
+			ioException.printStackTrace();
+		}
+		if( durationHistory != null ) {
+			result.add( durationHistory );
+		}
+		return( result );
+	}
+
+	private static Writer openWriter( final String path )
+	throws IOException {
+		if( path.equals(STANDARD_OUTPUT_PATH) == true ) {
+			return( new OutputStreamWriter(System.out, StandardCharsets.UTF_8) );
+		}
+		final File file = new File( path );
+		final File directory = file.getAbsoluteFile().getParentFile();
+		if( (directory.isDirectory() == false)
+				&& (directory.mkdirs() == false) ) {
+			throw( new IOException("Cannot create directory: " + directory) );
+		}
+		return( new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8) );
 	}
 
 	/**
-	 * <p>Utility method to identify the class name of a caller.</p>
+	 * <p>Deliver an event to every sink.  A sink that fails is reported but
+	 * does not prevent delivery to the others.</p>
 	 *
-	 * @param depth
-	 * The callstack depth from which to retrieve the class name.
+	 * @param sinkList
+	 * The sinks.
+	 * @param event
+	 * The event.
+	 */
+	static void dispatch( final List<TestEventSink> sinkList, final TestEvent event ) {
+		for( TestEventSink sink : sinkList ) {
+			try {
+				sink.accept( event );
+			} catch( IOException ioException ) {
+				ioException.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * <p>Instantiate a test for the specified URL.</p>
+	 *
+	 * @param descriptor
+	 * The test.
+	 * @param url
+	 * The URL to test.
 	 * @return
-	 * Returns the full class name.
+	 * Returns the test, or <code>null</code> if it could not be instantiated.
 	 */
-	private static final String getCallstackClassName( int depth ) {
-		String result = null;
+	private static ChromeDriverTest createTest( final TestDescriptor descriptor, final String url ) {
+		ChromeDriverTest result = null;
 		try {
-			throw( new Exception() );
-		} catch( Exception exception ) {
-			StackTraceElement[] stackTrace = exception.getStackTrace();
-			result = stackTrace[depth].getClassName();
+			result = descriptor.create( url );
+		} catch( RuntimeException runtimeException ) {
+			runtimeException.printStackTrace();
 		}
 		return( result );
 	}
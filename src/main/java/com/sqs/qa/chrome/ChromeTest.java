@@ -0,0 +1,67 @@
+/*
+ * com/sqs/qa/chrome/ChromeTest.java
+ *
+ * ChromeTest object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * <p>Marks a {@link ChromeDriverTest} for inclusion in the suite.</p>
+ *
+ * <p>At build time, <code>ChromeTestProcessor</code> generates
+ * <code>ChromeTestIndex</code>, which lists a {@link TestDescriptor} for
+ * every annotated class.  The runner selects tests from the index by their
+ * metadata and creates only those it executes, without reflection.  An
+ * annotated class must be public and concrete, and have a public
+ * constructor taking the URL to test.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+@Documented
+@Retention( RetentionPolicy.RUNTIME )
+@Target( ElementType.TYPE )
+public @interface ChromeTest
+{
+	/**
+	 * <p>The name of the page the test checks.</p>
+	 */
+	String page() default "";
+
+	/**
+	 * <p>Tags by which the test can be selected, such as
+	 * <code>table</code>.</p>
+	 */
+	String[] tags() default {};
+
+	/**
+	 * <p>Whether the test modifies the page; see
+	 * {@link ChromeDriverTest#isPageMutating()}.</p>
+	 */
+	boolean mutatesPage() default false;
+
+	/**
+	 * <p>The expected duration of the test's checks in milliseconds, used
+	 * to schedule it until its duration has been recorded, or 0 if
+	 * unknown.</p>
+	 */
+	long expectedMillis() default 0;
+
+	/**
+	 * <p>The class names of the page containers whose content the checks
+	 * read, such as <code>large-2</code>.  While neither the test nor these
+	 * containers change, a pass is reused from the {@link ResultCache}
+	 * rather than the checks executed again.  Tests that declare none, or
+	 * that modify the page, are always executed.</p>
+	 */
+	String[] dependsOn() default {};
+}
@@ -0,0 +1,394 @@
+/*
+ * com/sqs/qa/chrome/CommandCounter.java
+ *
+ * CommandCounter object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.WrapsElement;
+import org.openqa.selenium.interactions.Locatable;
+
+
+/**
+ * <p>Counts and times the commands a web driver sends to the browser.</p>
+ *
+ * <p>{@link #decorate(WebDriver, CommandCounter)} wraps a web driver, and
+ * every element, navigation, window and similar object obtained from it, in
+ * dynamic proxies implementing the same interfaces.  Each call that results
+ * in a round trip to the browser is counted under its method name
+ * (<code>findElements</code>, <code>getText</code>,
+ * <code>executeScript</code>, ...); calls answered locally, such as
+ * <code>manage()</code> or <code>equals()</code>, are not.  DevTools commands
+ * issued through {@link DevTools} are counted as
+ * <code>cdp.<i>command</i></code>.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class CommandCounter
+{
+	//
+	// Constants
+	//
+
+	/**
+	 * <p>Methods answered without a round trip to the browser, by declaring
+	 * interface and name (see {@link #getMethodKey(Class, String)}).  A name
+	 * alone is not enough: <code>Options.window()</code> is local, but
+	 * <code>TargetLocator.window(String)</code> is a round trip.</p>
+	 */
+	private static final Set<String> LOCAL_METHOD_KEYS = new HashSet<String>( Arrays.asList(
+			getMethodKey( Object.class, "equals" ),
+			getMethodKey( Object.class, "hashCode" ),
+			getMethodKey( Object.class, "toString" ),
+			getMethodKey( WrapsDriver.class, "getWrappedDriver" ),
+			getMethodKey( WrapsElement.class, "getWrappedElement" ),
+			getMethodKey( HasCapabilities.class, "getCapabilities" ),
+			getMethodKey( Locatable.class, "getCoordinates" ),
+			getMethodKey( WebDriver.class, "manage" ),
+			getMethodKey( WebDriver.class, "navigate" ),
+			getMethodKey( WebDriver.class, "switchTo" ),
+			getMethodKey( WebDriver.Options.class, "window" ),
+			getMethodKey( WebDriver.Options.class, "timeouts" ),
+			getMethodKey( WebDriver.Options.class, "logs" )) );
+
+
+	//
+	// Instance fields
+	//
+
+	/**
+	 * <p>Counts and elapsed nanoseconds, indexed 0 and 1, by command
+	 * name.</p>
+	 */
+	private final Map<String, long[]> m_commands;
+
+
+	//
+	// Constructors
+	//
+
+	public CommandCounter() {
+		super();
+		m_commands = new TreeMap<String, long[]>();
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	/**
+	 * <p>Record a command.</p>
+	 *
+	 * @param command
+	 * The command name.
+	 * @param elapsedNanos
+	 * The duration of the round trip.
+	 */
+	public synchronized void record( final String command, final long elapsedNanos ) {
+		long[] entry = m_commands.get( command );
+		if( entry == null ) {
+			entry = new long[2];
+			m_commands.put( command, entry );
+		}
+		entry[0]++;
+		entry[1] += elapsedNanos;
+	}
+
+	/**
+	 * <p>Get the total number of commands recorded.</p>
+	 *
+	 * @return
+	 * Returns the count.
+	 */
+	public synchronized int getCount() {
+		int result = 0;
+		for( long[] entry : m_commands.values() ) {
+			result += (int) entry[0];
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Get the number of commands of the specified kind recorded.</p>
+	 *
+	 * @param command
+	 * The command name.
+	 * @return
+	 * Returns the count.
+	 */
+	public synchronized int getCount( final String command ) {
+		final long[] entry = m_commands.get( command );
+		return( (entry != null) ? (int) entry[0] : 0 );
+	}
+
+	/**
+	 * <p>Discard all recorded commands.</p>
+	 */
+	public synchronized void reset() {
+		m_commands.clear();
+	}
+
+	@Override
+	public synchronized String toString() {
+		final StringBuilder sb = new StringBuilder();
+		long totalNanos = 0;
+		for( Map.Entry<String, long[]> entry : m_commands.entrySet() ) {
+			sb.append( String.format(", %s %d (%.1f ms)", entry.getKey(), entry.getValue()[0],
+					entry.getValue()[1] / (double) TimeUnit.MILLISECONDS.toNanos(1)) );
+			totalNanos += entry.getValue()[1];
+		}
+		final String result = String.format( "%d commands in %.1f ms%s", getCount(),
+				totalNanos / (double) TimeUnit.MILLISECONDS.toNanos(1), sb );
+		return( result );
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Wrap a web driver so that its commands are recorded.</p>
+	 *
+	 * @param webDriver
+	 * The web driver.
+	 * @param counter
+	 * The counter to record to.
+	 * @return
+	 * Returns the decorated web driver, which implements the interfaces of
+	 * the original and {@link WrapsDriver}.
+	 */
+	public static WebDriver decorate( final WebDriver webDriver, final CommandCounter counter ) {
+		final DriverHandler handler = new DriverHandler( webDriver, counter );
+		handler.m_proxy = (WebDriver) createProxy( webDriver, WrapsDriver.class, handler );
+		return( handler.m_proxy );
+	}
+
+	/**
+	 * <p>Get the counter of a decorated web driver.</p>
+	 *
+	 * @param webDriver
+	 * The web driver.
+	 * @return
+	 * Returns the counter, or <code>null</code> if the web driver is not
+	 * decorated.
+	 */
+	public static CommandCounter of( final WebDriver webDriver ) {
+		CommandCounter result = null;
+		if( Proxy.isProxyClass(webDriver.getClass()) == true ) {
+			final InvocationHandler handler = Proxy.getInvocationHandler( webDriver );
+			if( handler instanceof DriverHandler ) {
+				result = ((DriverHandler) handler).m_counter;
+			}
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Create a proxy implementing all public interfaces of the target and
+	 * the specified additional interface.</p>
+	 */
+	private static Object createProxy( final Object target, final Class<?> additionalInterface,
+			final InvocationHandler handler ) {
+		final Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+		for( Class<?> c = target.getClass(); c != null; c = c.getSuperclass() ) {
+			collectInterfaces( c, interfaces );
+		}
+		if( additionalInterface != null ) {
+			interfaces.add( additionalInterface );
+		}
+		final Object result = Proxy.newProxyInstance( target.getClass().getClassLoader(),
+				interfaces.toArray(new Class<?>[interfaces.size()]), handler );
+		return( result );
+	}
+
+	private static void collectInterfaces( final Class<?> c, final Set<Class<?>> interfaces ) {
+		for( Class<?> i : c.getInterfaces() ) {
+			if( Modifier.isPublic(i.getModifiers()) == true ) {
+				interfaces.add( i );
+			}
+			collectInterfaces( i, interfaces );
+		}
+	}
+
+	/**
+	 * <p>Get the key of a method in {@link #LOCAL_METHOD_KEYS}.</p>
+	 *
+	 * @param declaringClass
+	 * The class or interface declaring the method.
+	 * @param methodName
+	 * The method name.
+	 * @return
+	 * Returns the key.
+	 */
+	private static String getMethodKey( final Class<?> declaringClass, final String methodName ) {
+		return( declaringClass.getName() + '#' + methodName );
+	}
+
+
+	//
+	// Nested classes
+	//
+
+	/**
+	 * <p>Invocation handler that records calls to the target and decorates
+	 * the objects they return.</p>
+	 */
+	private static class CountingHandler
+	implements InvocationHandler
+	{
+		final Object m_target;
+
+		final CommandCounter m_counter;
+
+		/**
+		 * <p>The handler of the decorated web driver.</p>
+		 */
+		final DriverHandler m_driverHandler;
+
+		CountingHandler( final Object target, final CommandCounter counter, final DriverHandler driverHandler ) {
+			super();
+			m_target = target;
+			m_counter = counter;
+			m_driverHandler = (driverHandler != null) ? driverHandler : (DriverHandler) this;
+		}
+
+		@Override
+		public Object invoke( final Object proxy, final Method method, final Object[] args )
+		throws Throwable {
+			final String methodName = method.getName();
+			if( (methodName.equals("getWrappedDriver") == true)
+					&& (method.getDeclaringClass() == WrapsDriver.class) ) {
+				// Stay decorated when elements are unwrapped to their driver
+				return( m_driverHandler.m_proxy );
+			}
+
+			final Object[] unwrappedArgs = (args != null) ? (Object[]) unwrap( args ) : null;
+			final long startNanos = System.nanoTime();
+			final Object result;
+			try {
+				result = method.invoke( m_target, unwrappedArgs );
+			} catch( InvocationTargetException invocationTargetException ) {
+				throw( invocationTargetException.getCause() );
+			} finally {
+				if( LOCAL_METHOD_KEYS.contains(getMethodKey(method.getDeclaringClass(), methodName)) == false ) {
+					m_counter.record( methodName, System.nanoTime() - startNanos );
+				}
+			}
+			return( wrap(result, method.getReturnType()) );
+		}
+
+		/**
+		 * <p>Decorate a returned object, if it may issue commands itself.</p>
+		 */
+		private Object wrap( final Object result, final Class<?> returnType ) {
+			if( result == null ) {
+				return( null );
+			} else if( result == m_driverHandler.m_target ) {
+				return( m_driverHandler.m_proxy );
+			} else if( result instanceof WebElement ) {
+				return( createProxy(result, WrapsElement.class,
+						new ElementHandler(result, m_counter, m_driverHandler)) );
+			} else if( result instanceof List<?> ) {
+				final List<?> resultList = (List<?>) result;
+				final List<Object> wrappedList = new ArrayList<Object>( resultList.size() );
+				for( Object element : resultList ) {
+					wrappedList.add( wrap(element, Object.class) );
+				}
+				return( wrappedList );
+			} else if( (returnType.isInterface() == true)
+					&& (returnType.getName().startsWith("org.openqa.selenium.") == true) ) {
+				// Options, Navigation, TargetLocator, Window, ...
+				return( createProxy(result, null, new CountingHandler(result, m_counter, m_driverHandler)) );
+			}
+			return( result );
+		}
+
+		/**
+		 * <p>Replace decorated elements by the originals in call arguments,
+		 * including those within arrays and lists.</p>
+		 */
+		private static Object unwrap( final Object arg ) {
+			if( (arg != null)
+					&& (Proxy.isProxyClass(arg.getClass()) == true)
+					&& (Proxy.getInvocationHandler(arg) instanceof CountingHandler) ) {
+				return( ((CountingHandler) Proxy.getInvocationHandler(arg)).m_target );
+			} else if( arg instanceof Object[] ) {
+				final Object[] array = (Object[]) arg;
+				final Object[] result = Arrays.copyOf( array, array.length );
+				for( int i = 0; i < result.length; i++ ) {
+					result[i] = unwrap( result[i] );
+				}
+				return( result );
+			} else if( arg instanceof List<?> ) {
+				final List<Object> result = new ArrayList<Object>();
+				for( Object element : (List<?>) arg ) {
+					result.add( unwrap(element) );
+				}
+				return( result );
+			}
+			return( arg );
+		}
+	}
+
+	private static final class DriverHandler
+	extends CountingHandler
+	{
+		WebDriver m_proxy;
+
+		DriverHandler( final WebDriver webDriver, final CommandCounter counter ) {
+			super( webDriver, counter, null );
+		}
+
+		@Override
+		public Object invoke( final Object proxy, final Method method, final Object[] args )
+		throws Throwable {
+			if( (method.getName().equals("getWrappedDriver") == true)
+					&& (method.getDeclaringClass() == WrapsDriver.class) ) {
+				return( m_target );
+			}
+			return( super.invoke(proxy, method, args) );
+		}
+	}
+
+	private static final class ElementHandler
+	extends CountingHandler
+	{
+		ElementHandler( final Object element, final CommandCounter counter, final DriverHandler driverHandler ) {
+			super( element, counter, driverHandler );
+		}
+
+		@Override
+		public Object invoke( final Object proxy, final Method method, final Object[] args )
+		throws Throwable {
+			if( (method.getName().equals("getWrappedElement") == true)
+					&& (method.getDeclaringClass() == WrapsElement.class) ) {
+				return( m_target );
+			}
+			return( super.invoke(proxy, method, args) );
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * com/sqs/qa/chrome/ConsoleEventSink.java
+ *
+ * ConsoleEventSink object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+
+/**
+ * <p>Reports test outcomes and suite totals on the console, through the same
+ * {@link AsyncLogWriter} as the test messages so that the two stay in
+ * order.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class ConsoleEventSink
+implements TestEventSink
+{
+	//
+	// Constants
+	//
+
+	static final String SEPARATOR_LINE =
+			"--------------------------------------------------------------------------------";
+
+
+	//
+	// Instance fields
+	//
+
+	private final AsyncLogWriter m_logWriter;
+
+	/**
+	 * <p>Whether the current test was terminated by an exception.</p>
+	 */
+	private boolean m_errored;
+
+	/**
+	 * <p>The number of tests terminated by an exception so far.</p>
+	 */
+	private int m_erroredTestCount;
+
+
+	//
+	// Constructors
+	//
+
+	public ConsoleEventSink( final AsyncLogWriter logWriter ) {
+		super();
+
+		if( logWriter == null ) {
+			throw( new NullPointerException("'logWriter' is null!") );
+		}
+
+		m_logWriter = logWriter;
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	@Override
+	public void accept( final TestEvent event ) {
+		switch( event.getType() ) {
+		case TEST_STARTED:
+			m_errored = false;
+			break;
+		case TEST_ERROR:
+			m_errored = true;
+			m_erroredTestCount++;
+			break;
+		case ARTIFACT:
+			m_logWriter.publish( LogMessage.line(event.getName() + ": artifact: " + event.getMessage()) );
+			break;
+		case TEST_FINISHED:
+			final String outcome;
+			if( m_errored == true ) {
+				outcome = String.format( "ERROR with %d errors", event.getErrorCount() );
+			} else if( event.getErrorCount() == 0 ) {
+				outcome = "passed";
+			} else {
+				outcome = String.format( "FAILED with %d errors", event.getErrorCount() );
+			}
+			final String phases = (event.getPhaseTimings() != null)
+					? " (" + event.getPhaseTimings() + ")"
+					: "";
+			m_logWriter.publish( LogMessage.line(String.format("%s: %s in %d ms%s",
+					event.getName(), outcome, event.getDurationMillis(), phases)) );
+			break;
+		case SUITE_FINISHED:
+			m_logWriter.publish( LogMessage.line(SEPARATOR_LINE) );
+			m_logWriter.publish( LogMessage.line(String.format("\n%d tests, %d errors (%d ms)",
+					event.getTestCount(), event.getErrorCount(), event.getDurationMillis())) );
+			if( m_erroredTestCount > 0 ) {
+				m_logWriter.publish( LogMessage.line(String.format("%d tests terminated by an exception",
+						m_erroredTestCount)) );
+			}
+			m_logWriter.publish( LogMessage.line(SEPARATOR_LINE) );
+			break;
+		default:
+			// Failures and exceptions are already reported as messages
+			break;
+		}
+	}
+
+	@Override
+	public void close() {
+		// The log writer is owned by the caller
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * com/sqs/qa/chrome/DevTools.java
+ *
+ * DevTools object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.util.Map;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.chromium.ChromiumDriver;
+
+
+/**
+ * <p>Utility methods for issuing Chrome DevTools Protocol commands through a
+ * web driver.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class DevTools
+{
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Not instantiable.</p>
+	 */
+	private DevTools() {
+		super();
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Execute a DevTools command.</p>
+	 *
+	 * @param webDriver
+	 * The web driver.  Decorating drivers are unwrapped to reach the
+	 * underlying Chrome driver.  If the web driver counts its commands, the
+	 * DevTools command is counted too.
+	 * @param command
+	 * The command name, such as <code>Page.captureScreenshot</code>.
+	 * @param parameters
+	 * The command parameters.
+	 * @return
+	 * Returns the command result.
+	 *
+	 * @throws UnsupportedOperationException
+	 * This exception is thrown if the web driver is not a Chrome driver.
+	 */
+	public static Map<String, Object> execute( final WebDriver webDriver, final String command,
+			final Map<String, Object> parameters ) {
+		final ChromiumDriver chromiumDriver = getChromiumDriver( webDriver );
+		final long startNanos = System.nanoTime();
+		final Map<String, Object> result = chromiumDriver.executeCdpCommand( command, parameters );
+		final CommandCounter commandCounter = CommandCounter.of( webDriver );
+		if( commandCounter != null ) {
+			commandCounter.record( "cdp." + command, System.nanoTime() - startNanos );
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Find the Chrome driver underlying the specified web driver.</p>
+	 *
+	 * @param webDriver
+	 * The web driver.
+	 * @return
+	 * Returns the Chrome driver.
+	 *
+	 * @throws UnsupportedOperationException
+	 * This exception is thrown if the web driver is not a Chrome driver.
+	 */
+	public static ChromiumDriver getChromiumDriver( final WebDriver webDriver ) {
+		WebDriver current = webDriver;
+		while( (current instanceof ChromiumDriver) == false ) {
+			if( (current instanceof WrapsDriver) == false ) {
+				throw( new UnsupportedOperationException("Not a Chrome driver: " + webDriver) );
+			}
+			current = ((WrapsDriver) current).getWrappedDriver();
+		}
+		return( (ChromiumDriver) current );
+	}
+}
@@ -0,0 +1,316 @@
+/*
+ * com/sqs/qa/chrome/DomNode.java
+ *
+ * DomNode object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.Point;
+
+
+/**
+ * <p>An element captured in a {@link DomSnapshot}.</p>
+ *
+ * <p>All properties were read from the page when the snapshot was taken, so
+ * querying a node never communicates with the browser.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class DomNode
+{
+	//
+	// Instance fields
+	//
+
+	private final String m_tagName;
+
+	private final Map<String, String> m_attributes;
+
+	/**
+	 * <p>The rendered text of the element and its descendants.</p>
+	 */
+	private final String m_text;
+
+	/**
+	 * <p>The location of the element's bounding box, relative to the
+	 * document.</p>
+	 */
+	private final Point m_location;
+
+	private final Dimension m_size;
+
+	/**
+	 * <p>The captured computed style properties.</p>
+	 */
+	private final Map<String, String> m_styles;
+
+	private final List<DomNode> m_children;
+
+	private DomNode m_parent;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link DomNode}.</p>
+	 *
+	 * @param tagName
+	 * The lower-case tag name.
+	 * @param attributes
+	 * The attributes.
+	 * @param text
+	 * The rendered text.
+	 * @param location
+	 * The location of the bounding box.
+	 * @param size
+	 * The size of the bounding box.
+	 * @param styles
+	 * The captured computed style properties.
+	 * @param children
+	 * The child elements.
+	 */
+	public DomNode( final String tagName, final Map<String, String> attributes, final String text,
+			final Point location, final Dimension size, final Map<String, String> styles,
+			final List<DomNode> children ) {
+		super();
+
+		if( tagName == null ) {
+			throw( new NullPointerException("'tagName' is null!") );
+		}
+
+		m_tagName = tagName;
+		m_attributes = Collections.unmodifiableMap( attributes );
+		m_text = text;
+		m_location = location;
+		m_size = size;
+		m_styles = Collections.unmodifiableMap( styles );
+		m_children = Collections.unmodifiableList( children );
+		for( DomNode child : children ) {
+			child.m_parent = this;
+		}
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	public String getTagName() {
+		return( m_tagName );
+	}
+
+	/**
+	 * <p>Get the value of an attribute.</p>
+	 *
+	 * @param name
+	 * The attribute name.
+	 * @return
+	 * Returns the attribute value, or <code>null</code> if it is not set.
+	 */
+	public String getAttribute( final String name ) {
+		return( m_attributes.get(name) );
+	}
+
+	public Map<String, String> getAttributes() {
+		return( m_attributes );
+	}
+
+	public String getId() {
+		return( m_attributes.get("id") );
+	}
+
+	/**
+	 * <p>Get the class names of the element.</p>
+	 *
+	 * @return
+	 * Returns the class names, in document order.
+	 */
+	public List<String> getClassNames() {
+		final List<String> result = new ArrayList<String>();
+		final String classNameAttribute = m_attributes.get( "class" );
+		if( classNameAttribute != null ) {
+			for( String className : classNameAttribute.trim().split("\\s+") ) {
+				if( className.length() > 0 ) {
+					result.add( className );
+				}
+			}
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Determine whether the element has the specified class.</p>
+	 *
+	 * @param className
+	 * The class name.
+	 * @return
+	 * Returns <code>true</code> if the element has the class.
+	 */
+	public boolean hasClassName( final String className ) {
+		return( getClassNames().contains(className) );
+	}
+
+	/**
+	 * <p>Get the rendered text, as {@link org.openqa.selenium.WebElement#getText()}
+	 * would.</p>
+	 *
+	 * @return
+	 * Returns the text.
+	 */
+	public String getText() {
+		return( m_text );
+	}
+
+	public Point getLocation() {
+		return( m_location );
+	}
+
+	public Dimension getSize() {
+		return( m_size );
+	}
+
+	/**
+	 * <p>Get a captured computed style property.</p>
+	 *
+	 * @param propertyName
+	 * The CSS property name.
+	 * @return
+	 * Returns the property value, or <code>null</code> if it was not
+	 * captured.
+	 */
+	public String getCssValue( final String propertyName ) {
+		return( m_styles.get(propertyName) );
+	}
+
+	public Map<String, String> getCssValues() {
+		return( m_styles );
+	}
+
+	public List<DomNode> getChildren() {
+		return( m_children );
+	}
+
+	/**
+	 * <p>Get the parent element.</p>
+	 *
+	 * @return
+	 * Returns the parent, or <code>null</code> for the snapshot root.
+	 */
+	public DomNode getParent() {
+		return( m_parent );
+	}
+
+	/**
+	 * <p>Find all descendants having the specified class, in document
+	 * order.</p>
+	 *
+	 * @param className
+	 * The class name.
+	 * @return
+	 * Returns the matching elements.
+	 */
+	public List<DomNode> findElementsByClassName( final String className ) {
+		final List<DomNode> result = new ArrayList<DomNode>();
+		for( DomNode child : m_children ) {
+			child.collectByClassName( className, result );
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Find all descendants having the specified tag name, in document
+	 * order.</p>
+	 *
+	 * @param tagName
+	 * The tag name.
+	 * @return
+	 * Returns the matching elements.
+	 */
+	public List<DomNode> findElementsByTagName( final String tagName ) {
+		final List<DomNode> result = new ArrayList<DomNode>();
+		for( DomNode child : m_children ) {
+			child.collectByTagName( tagName.toLowerCase(), result );
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Find the first descendant having the specified class.</p>
+	 *
+	 * @param className
+	 * The class name.
+	 * @return
+	 * Returns the first matching element.
+	 *
+	 * @throws NoSuchElementException
+	 * This exception is thrown if there is no matching element.
+	 */
+	public DomNode findElementByClassName( final String className ) {
+		final List<DomNode> nodeList = findElementsByClassName( className );
+		if( nodeList.isEmpty() == true ) {
+			throw( new NoSuchElementException("No element with class: " + className) );
+		}
+		return( nodeList.get(0) );
+	}
+
+	/**
+	 * <p>Find the first descendant having the specified tag name.</p>
+	 *
+	 * @param tagName
+	 * The tag name.
+	 * @return
+	 * Returns the first matching element.
+	 *
+	 * @throws NoSuchElementException
+	 * This exception is thrown if there is no matching element.
+	 */
+	public DomNode findElementByTagName( final String tagName ) {
+		final List<DomNode> nodeList = findElementsByTagName( tagName );
+		if( nodeList.isEmpty() == true ) {
+			throw( new NoSuchElementException("No element with tag name: " + tagName) );
+		}
+		return( nodeList.get(0) );
+	}
+
+	/**
+	 * <p>Pretty-print the element in the same form as
+	 * {@link ChromeDriverTest#toString(org.openqa.selenium.WebElement)}.</p>
+	 *
+	 * @return
+	 * Returns the formatted element.
+	 */
+	@Override
+	public String toString() {
+		return( ChromeDriverTest.toString(m_tagName, getId(), m_attributes.get("class")) );
+	}
+
+	private void collectByClassName( final String className, final List<DomNode> result ) {
+		if( hasClassName(className) == true ) {
+			result.add( this );
+		}
+		for( DomNode child : m_children ) {
+			child.collectByClassName( className, result );
+		}
+	}
+
+	private void collectByTagName( final String tagName, final List<DomNode> result ) {
+		if( m_tagName.equals(tagName) == true ) {
+			result.add( this );
+		}
+		for( DomNode child : m_children ) {
+			child.collectByTagName( tagName, result );
+		}
+	}
+}
@@ -0,0 +1,314 @@
+/*
+ * com/sqs/qa/chrome/DomSnapshot.java
+ *
+ * DomSnapshot object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+
+/**
+ * <p>An in-memory copy of (part of) the DOM of a page.</p>
+ *
+ * <p>Reading element properties through {@link WebElement} costs a round
+ * trip to chromedriver per call, so checking a table costs a round trip per
+ * cell.  A snapshot serialises the tag names, attributes, rendered text,
+ * bounding boxes and selected computed styles of a whole subtree in a
+ * single script call, after which checks are evaluated against the
+ * resulting {@link DomNode} tree without contacting the browser.</p>
+ *
+ * <p>The rendered text of an element repeats that of all its descendants,
+ * so sending it for every element would grow with the text times the depth
+ * of the tree.  Instead, an element whose text is made up of its children's
+ * is sent with only the text between theirs, and its text is rebuilt here;
+ * each character of the page is therefore sent about once.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class DomSnapshot
+{
+	//
+	// Constants
+	//
+
+	/**
+	 * <p>The computed style properties captured by default.</p>
+	 */
+	public static final List<String> DEFAULT_STYLE_PROPERTIES = Arrays.asList(
+		"display",
+		"visibility",
+		"color",
+		"background-color",
+		"font-size",
+		"font-weight"
+	);
+
+	/**
+	 * <p>Script serialising the subtree rooted at <code>arguments[0]</code>
+	 * (or the document body), capturing the computed style properties listed
+	 * in <code>arguments[1]</code>.  Script and style elements are
+	 * skipped.  Each element has either its rendered text (<code>text</code>)
+	 * or the text before, between and after its children's (<code>g</code>),
+	 * whichever reproduces it.</p>
+	 */
+	private static final String SNAPSHOT_SCRIPT =
+			"var properties = arguments[1];"
+			+ "var scrollX = window.pageXOffset, scrollY = window.pageYOffset;"
+			+ "function snap( e ) {"
+			+ "  var rect = e.getBoundingClientRect();"
+			+ "  var computedStyle = window.getComputedStyle( e );"
+			+ "  var attributes = {};"
+			+ "  for( var i = 0; i < e.attributes.length; i++ ) {"
+			+ "    attributes[e.attributes[i].name] = e.attributes[i].value;"
+			+ "  }"
+			+ "  var styles = {};"
+			+ "  for( var j = 0; j < properties.length; j++ ) {"
+			+ "    styles[properties[j]] = computedStyle.getPropertyValue( properties[j] );"
+			+ "  }"
+			+ "  var children = [], texts = [];"
+			+ "  for( var c = e.firstElementChild; c; c = c.nextElementSibling ) {"
+			+ "    if( /^(SCRIPT|STYLE|NOSCRIPT|TEMPLATE)$/i.test(c.tagName) ) continue;"
+			+ "    var child = snap( c );"
+			+ "    texts.push( child.r );"
+			+ "    delete child.r;"
+			+ "    children.push( child );"
+			+ "  }"
+			+ "  var text = (typeof e.innerText === 'string') ? e.innerText : (e.textContent || '');"
+			+ "  var node = {"
+			+ "    t: e.tagName.toLowerCase(), a: attributes,"
+			+ "    x: rect.left + scrollX, y: rect.top + scrollY, w: rect.width, h: rect.height,"
+			+ "    s: styles, c: children, r: text"
+			+ "  };"
+			+ "  var glue = (children.length > 0) ? [] : null, at = 0;"
+			+ "  for( var k = 0; glue && (k < texts.length); k++ ) {"
+			+ "    var found = text.indexOf( texts[k], at );"
+			+ "    if( found < 0 ) { glue = null; break; }"
+			+ "    glue.push( text.substring(at, found) );"
+			+ "    at = found + texts[k].length;"
+			+ "  }"
+			+ "  if( glue ) { glue.push( text.substring(at) ); node.g = glue; } else { node.text = text; }"
+			+ "  return node;"
+			+ "}"
+			+ "var root = snap( arguments[0] || document.body );"
+			+ "delete root.r;"
+			+ "return root;";
+
+
+	//
+	// Instance fields
+	//
+
+	private final DomNode m_root;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link DomSnapshot} with the specified root.</p>
+	 *
+	 * @param root
+	 * The root element.
+	 */
+	public DomSnapshot( final DomNode root ) {
+		super();
+
+		if( root == null ) {
+			throw( new NullPointerException("'root' is null!") );
+		}
+
+		m_root = root;
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	public DomNode getRoot() {
+		return( m_root );
+	}
+
+	/**
+	 * <p>Find all elements (including the root) having the specified class,
+	 * in document order.</p>
+	 *
+	 * @param className
+	 * The class name.
+	 * @return
+	 * Returns the matching elements.
+	 */
+	public List<DomNode> findElementsByClassName( final String className ) {
+		final List<DomNode> result = new ArrayList<DomNode>();
+		if( m_root.hasClassName(className) == true ) {
+			result.add( m_root );
+		}
+		result.addAll( m_root.findElementsByClassName(className) );
+		return( result );
+	}
+
+	/**
+	 * <p>Find all elements (including the root) having the specified tag
+	 * name, in document order.</p>
+	 *
+	 * @param tagName
+	 * The tag name.
+	 * @return
+	 * Returns the matching elements.
+	 */
+	public List<DomNode> findElementsByTagName( final String tagName ) {
+		final List<DomNode> result = new ArrayList<DomNode>();
+		if( m_root.getTagName().equalsIgnoreCase(tagName) == true ) {
+			result.add( m_root );
+		}
+		result.addAll( m_root.findElementsByTagName(tagName) );
+		return( result );
+	}
+
+	/**
+	 * <p>Find the first element having the specified class.</p>
+	 *
+	 * @param className
+	 * The class name.
+	 * @return
+	 * Returns the first matching element.
+	 *
+	 * @throws NoSuchElementException
+	 * This exception is thrown if there is no matching element.
+	 */
+	public DomNode findElementByClassName( final String className ) {
+		final List<DomNode> nodeList = findElementsByClassName( className );
+		if( nodeList.isEmpty() == true ) {
+			throw( new NoSuchElementException("No element with class: " + className) );
+		}
+		return( nodeList.get(0) );
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Capture the document body, with the default style properties.</p>
+	 *
+	 * @param webDriver
+	 * The web driver showing the page.
+	 * @return
+	 * Returns the snapshot.
+	 */
+	public static DomSnapshot capture( final WebDriver webDriver ) {
+		return( capture(webDriver, null, DEFAULT_STYLE_PROPERTIES) );
+	}
+
+	/**
+	 * <p>Capture the subtree rooted at the specified element in a single
+	 * script call.</p>
+	 *
+	 * @param webDriver
+	 * The web driver showing the page.
+	 * @param rootElement
+	 * The root of the subtree, or <code>null</code> for the document body.
+	 * @param styleProperties
+	 * The computed style properties to capture.
+	 * @return
+	 * Returns the snapshot.
+	 */
+	public static DomSnapshot capture( final WebDriver webDriver, final WebElement rootElement,
+			final List<String> styleProperties ) {
+		if( webDriver == null ) {
+			throw( new NullPointerException("'webDriver' is null!") );
+		}
+
+		final JavascriptExecutor javascriptExecutor = (JavascriptExecutor) webDriver;
+		final Object value = javascriptExecutor.executeScript( SNAPSHOT_SCRIPT, rootElement, styleProperties );
+		final DomSnapshot result = new DomSnapshot( toDomNode(value) );
+		return( result );
+	}
+
+	/**
+	 * <p>Convert the value returned by the snapshot script into a
+	 * {@link DomNode}.</p>
+	 *
+	 * @param value
+	 * The script value for one element.
+	 * @return
+	 * Returns the element and its descendants.
+	 */
+	static DomNode toDomNode( final Object value ) {
+		final Map<?, ?> map = (Map<?, ?>) value;
+
+		final List<DomNode> children = new ArrayList<DomNode>();
+		for( Object childValue : (List<?>) map.get("c") ) {
+			children.add( toDomNode(childValue) );
+		}
+
+		final Point location = new Point( toInt(map.get("x")), toInt(map.get("y")) );
+		final Dimension size = new Dimension( toInt(map.get("w")), toInt(map.get("h")) );
+		final DomNode result = new DomNode( (String) map.get("t"), toStringMap(map.get("a")),
+				toText(map, children), location, size, toStringMap(map.get("s")), children );
+		return( result );
+	}
+
+	/**
+	 * <p>Get the rendered text of an element returned by the snapshot script,
+	 * rebuilding it from its children's if only the text between theirs was
+	 * sent.</p>
+	 *
+	 * @param map
+	 * The script value for the element.
+	 * @param children
+	 * The element's children.
+	 * @return
+	 * Returns the text.
+	 */
+	private static String toText( final Map<?, ?> map, final List<DomNode> children ) {
+		final List<?> glueList = (List<?>) map.get( "g" );
+		if( glueList == null ) {
+			return( (String) map.get("text") );
+		}
+		final StringBuilder sb = new StringBuilder( (String) glueList.get(0) );
+		for( int i = 0; i < children.size(); i++ ) {
+			sb.append( children.get(i).getText() ).append( (String) glueList.get(i + 1) );
+		}
+		return( sb.toString() );
+	}
+
+	private static Map<String, String> toStringMap( final Object value ) {
+		final Map<String, String> result = new HashMap<String, String>();
+		for( Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet() ) {
+			result.put( String.valueOf(entry.getKey()), String.valueOf(entry.getValue()) );
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Convert a script number (returned as either a {@link Long} or a
+	 * {@link Double}) to an integer, truncating as chromedriver does for
+	 * element locations and sizes.</p>
+	 *
+	 * @param value
+	 * The script value.
+	 * @return
+	 * Returns the integer value.
+	 */
+	private static int toInt( final Object value ) {
+		return( ((Number) value).intValue() );
+	}
+}
@@ -0,0 +1,279 @@
+/*
+ * com/sqs/qa/chrome/DurationHistory.java
+ *
+ * DurationHistory object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * <p>Expected test durations, learnt from previous runs and kept in a small
+ * properties file, for scheduling the longest tests first.</p>
+ *
+ * <p>As a {@link TestEventSink}, the history records the time every
+ * finished test spent on its checks, and is saved when the sink is closed.
+ * Launching the session and loading the page are left out: they fall to
+ * whichever tests a worker starts first, which would then stay first.  Each test's estimate
+ * is a moving average, so that one unusually slow run does not reorder the
+ * suite.  Tests without history are expected to take the duration they
+ * declare, if any, or else the average of the known estimates.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class DurationHistory
+implements TestEventSink
+{
+	//
+	// Constants
+	//
+
+	/**
+	 * <p>System property specifying the history file.</p>
+	 */
+	private static final String FILE_PROPERTY = "sqs.qa.durationHistory";
+
+	private static final String DEFAULT_FILENAME = "durations.properties";
+
+	/**
+	 * <p>The estimate for any test when there is no history at all.</p>
+	 */
+	private static final long DEFAULT_ESTIMATE_MILLIS = 5000;
+
+	/**
+	 * <p>The weight of the latest duration in the moving average.</p>
+	 */
+	private static final double LATEST_WEIGHT = 0.3;
+
+
+	//
+	// Instance fields
+	//
+
+	/**
+	 * <p>The history file.</p>
+	 */
+	private final File m_file;
+
+	/**
+	 * <p>Estimated milliseconds by test class name.</p>
+	 */
+	private final Properties m_estimates;
+
+	private boolean m_modified;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link DurationHistory}, loading the specified file
+	 * if present.</p>
+	 *
+	 * @param file
+	 * The history file.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the file cannot be read.
+	 */
+	public DurationHistory( final File file )
+	throws IOException {
+		this( file, true );
+	}
+
+	private DurationHistory( final File file, final boolean load )
+	throws IOException {
+		super();
+
+		if( file == null ) {
+			throw( new NullPointerException("'file' is null!") );
+		}
+
+		m_file = file;
+		m_estimates = new Properties();
+		if( (load == true)
+				&& (file.exists() == true) ) {
+			final InputStream inputStream = new FileInputStream( file );
+			try {
+				m_estimates.load( inputStream );
+			} finally {
+				inputStream.close();
+			}
+		}
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	/**
+	 * <p>Get the expected duration of a test.</p>
+	 *
+	 * @param testName
+	 * The test class name.
+	 * @return
+	 * Returns the estimate, in milliseconds.
+	 */
+	public long getEstimateMillis( final String testName ) {
+		return( getEstimateMillis(testName, 0) );
+	}
+
+	/**
+	 * <p>Get the expected duration of a test, preferring its recorded history
+	 * to the duration declared by the test (see
+	 * {@link ChromeTest#expectedMillis()}).</p>
+	 *
+	 * @param testName
+	 * The test class name.
+	 * @param declaredMillis
+	 * The duration declared by the test, or 0 if none.
+	 * @return
+	 * Returns the estimate, in milliseconds.
+	 */
+	public synchronized long getEstimateMillis( final String testName, final long declaredMillis ) {
+		final long estimate = getRecordedMillis( testName );
+		if( estimate >= 0 ) {
+			return( estimate );
+		} else if( declaredMillis > 0 ) {
+			return( declaredMillis );
+		}
+
+		// Fall back on the average of the known tests
+		long totalMillis = 0;
+		int count = 0;
+		for( String name : m_estimates.stringPropertyNames() ) {
+			final long recordedMillis = getRecordedMillis( name );
+			if( recordedMillis >= 0 ) {
+				totalMillis += recordedMillis;
+				count++;
+			}
+		}
+		return( (count > 0) ? totalMillis / count : DEFAULT_ESTIMATE_MILLIS );
+	}
+
+	/**
+	 * <p>Record a duration of a test.</p>
+	 *
+	 * @param testName
+	 * The test class name.
+	 * @param durationMillis
+	 * The duration, in milliseconds.
+	 */
+	public synchronized void record( final String testName, final long durationMillis ) {
+		final long previousMillis = getRecordedMillis( testName );
+		final long estimateMillis = (previousMillis >= 0)
+				? Math.round( (LATEST_WEIGHT * durationMillis) + ((1.0 - LATEST_WEIGHT) * previousMillis) )
+				: durationMillis;
+		m_estimates.setProperty( testName, Long.toString(estimateMillis) );
+		m_modified = true;
+	}
+
+	@Override
+	public void accept( final TestEvent event ) {
+		// A reused pass took no time to check, and would drag the estimate down
+		if( (event.getType() == TestEvent.Type.TEST_FINISHED)
+				&& (event.isReused() == false)
+				&& (event.getPhaseTimings() != null) ) {
+			record( event.getName(),
+					TimeUnit.NANOSECONDS.toMillis(event.getPhaseTimings().getNanos(TestPhase.CHECKS)) );
+		}
+	}
+
+	/**
+	 * <p>Save the history, if any durations were recorded.</p>
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the file cannot be written.
+	 */
+	@Override
+	public synchronized void close()
+	throws IOException {
+		if( m_modified == false ) {
+			return;
+		}
+
+		final File directory = m_file.getAbsoluteFile().getParentFile();
+		if( (directory.isDirectory() == false)
+				&& (directory.mkdirs() == false) ) {
+			throw( new IOException("Cannot create directory: " + directory) );
+		}
+		final File temporaryFile = new File( directory, m_file.getName() + ".tmp" );
+		final OutputStream outputStream = new FileOutputStream( temporaryFile );
+		try {
+			m_estimates.store( outputStream, "Expected test durations: class=milliseconds" );
+		} finally {
+			outputStream.close();
+		}
+		Files.move( temporaryFile.toPath(), m_file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+		m_modified = false;
+	}
+
+	/**
+	 * <p>Get the recorded estimate of a test.</p>
+	 *
+	 * @return
+	 * Returns the estimate, or -1 if none is recorded.
+	 */
+	private long getRecordedMillis( final String testName ) {
+		final String value = m_estimates.getProperty( testName );
+		long result = -1;
+		if( value != null ) {
+			try {
+				result = Long.parseLong( value );
+			} catch( NumberFormatException numberFormatException ) {
+				// Treat as unknown
+			}
+		}
+		return( result );
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Load the history from the file given by the
+	 * <code>sqs.qa.durationHistory</code> system property, or
+	 * <code>durations.properties</code> in the artifact directory.  If the
+	 * file cannot be read, the history starts afresh.</p>
+	 *
+	 * @return
+	 * Returns the history.
+	 */
+	public static DurationHistory loadDefault() {
+		final String path = System.getProperty( FILE_PROPERTY );
+		final File file = (path != null)
+				? new File( path )
+				: new File( ChromeDriverTest.getArtifactDirectory(), DEFAULT_FILENAME );
+		DurationHistory result;
+		try {
+			result = new DurationHistory( file, true );
+		} catch( IOException ioException ) {
+			ioException.printStackTrace();
+			try {
+				result = new DurationHistory( file, false );
+			} catch( IOException unexpectedIOException ) {
+				// Nothing is read
+				throw( new IllegalStateException(unexpectedIOException) );
+			}
+		}
+		return( result );
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * com/sqs/qa/chrome/ElementDescription.java
+ *
+ * ElementDescription object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.WebElement;
+
+
+/**
+ * <p>The commonly used properties of a {@link WebElement}, fetched together
+ * by {@link ChromeDriverTest#describe(java.util.List)}.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class ElementDescription
+{
+	//
+	// Instance fields
+	//
+
+	private final String m_tagName;
+
+	private final String m_id;
+
+	/**
+	 * <p>The raw <code>class</code> attribute, or <code>null</code>.</p>
+	 */
+	private final String m_className;
+
+	private final String m_text;
+
+	private final Dimension m_size;
+
+	private final Point m_location;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link ElementDescription}.</p>
+	 *
+	 * @param tagName
+	 * The tag name.
+	 * @param id
+	 * The <code>id</code> attribute, or <code>null</code>.
+	 * @param className
+	 * The <code>class</code> attribute, or <code>null</code>.
+	 * @param text
+	 * The rendered text.
+	 * @param size
+	 * The size of the element.
+	 * @param location
+	 * The location of the element, relative to the document.
+	 */
+	public ElementDescription( final String tagName, final String id, final String className,
+			final String text, final Dimension size, final Point location ) {
+		super();
+		m_tagName = tagName;
+		m_id = id;
+		m_className = className;
+		m_text = text;
+		m_size = size;
+		m_location = location;
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	public String getTagName() {
+		return( m_tagName );
+	}
+
+	public String getId() {
+		return( m_id );
+	}
+
+	public String getClassName() {
+		return( m_className );
+	}
+
+	public String getText() {
+		return( m_text );
+	}
+
+	public Dimension getSize() {
+		return( m_size );
+	}
+
+	public Point getLocation() {
+		return( m_location );
+	}
+
+	/**
+	 * <p>Pretty-print the element in the same form as
+	 * {@link ChromeDriverTest#toString(WebElement)}.</p>
+	 *
+	 * @return
+	 * Returns the formatted element.
+	 */
+	@Override
+	public String toString() {
+		return( ChromeDriverTest.toString(m_tagName, m_id, m_className) );
+	}
+}
@@ -1,13 +1,19 @@
 
 package com.sqs.qa.chrome;
 
+import java.io.File;
+
 public interface ErrorCallback
 {
-	public abstract void debug( final String format, final Object... args );
+	public abstract boolean isEnabled( final LogLevel level );
+
+	public abstract void debug( final String source, final String format, final Object... args );
+
+	public abstract void info( final String source, final String format, final Object... args );
 
-	public abstract void info( final String format, final Object... args );
+	public abstract void warning( final String source, final String format, final Object... args );
 
-	public abstract void warning( final String format, final Object... args );
+	public abstract void error( final String source, final String format, final Object... args );
 
-	public abstract void error( final String format, final Object... args );
+	public abstract void artifact( final String source, final File file );
 }
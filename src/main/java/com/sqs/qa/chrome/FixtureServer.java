@@ -0,0 +1,473 @@
+/*
+ * com/sqs/qa/chrome/FixtureServer.java
+ *
+ * FixtureServer object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+
+/**
+ * <p>Local HTTP server standing in for the site under test.</p>
+ *
+ * <p>The server listens on the loopback interface, and
+ * {@link #rewrite(String)} maps a URL of the site to the same path on the
+ * server.  Pages refer to their assets by root-relative URLs, so those are
+ * requested from the server too.  In {@link Mode#RECORD} mode, each
+ * <code>GET</code> request not yet seen is forwarded to the site and the
+ * response is kept; the responses are written to a compact, gzipped archive
+ * when the server is stopped.  In {@link Mode#REPLAY} mode, the archive is
+ * loaded into memory and responses are served from it without any network
+ * access; requests that were not recorded are answered with 404.</p>
+ *
+ * <p>Only the status, <code>Content-Type</code>, <code>Location</code> and
+ * body of a response are kept.  Resources referred to by absolute URLs of
+ * other sites are not served by the fixture.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class FixtureServer
+{
+	//
+	// Constants
+	//
+
+	/**
+	 * <p>System property selecting the mode, <code>record</code> or
+	 * <code>replay</code>.  The site is used directly if it is not set.</p>
+	 */
+	private static final String MODE_PROPERTY = "sqs.qa.fixtureMode";
+
+	/**
+	 * <p>System property specifying the archive file.</p>
+	 */
+	private static final String ARCHIVE_PROPERTY = "sqs.qa.fixtureArchive";
+
+	/**
+	 * <p>Archive file signature, "SQSF".</p>
+	 */
+	private static final int ARCHIVE_MAGIC = 0x53515346;
+
+	private static final int ARCHIVE_VERSION = 1;
+
+	private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+
+	private static final int READ_TIMEOUT_MILLIS = 30000;
+
+	private static final int HANDLER_THREAD_COUNT = 4;
+
+
+	//
+	// Instance fields
+	//
+
+	private final Mode m_mode;
+
+	/**
+	 * <p>The site, as <code>scheme://host[:port]</code>.</p>
+	 */
+	private final String m_origin;
+
+	private final File m_archiveFile;
+
+	/**
+	 * <p>Responses by request path and query.</p>
+	 */
+	private final Map<String, Response> m_responses;
+
+	private HttpServer m_httpServer;
+
+	private ExecutorService m_executorService;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link FixtureServer}.</p>
+	 *
+	 * @param mode
+	 * The mode.
+	 * @param origin
+	 * The site, as <code>scheme://host[:port]</code>.
+	 * @param archiveFile
+	 * The archive to write (when recording) or read (when replaying).
+	 */
+	public FixtureServer( final Mode mode, final String origin, final File archiveFile ) {
+		super();
+
+		if( mode == null ) {
+			throw( new NullPointerException("'mode' is null!") );
+		} else if( origin == null ) {
+			throw( new NullPointerException("'origin' is null!") );
+		} else if( archiveFile == null ) {
+			throw( new NullPointerException("'archiveFile' is null!") );
+		}
+
+		m_mode = mode;
+		m_origin = origin;
+		m_archiveFile = archiveFile;
+		m_responses = new ConcurrentHashMap<String, Response>();
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	/**
+	 * <p>Start serving on an ephemeral loopback port.  When replaying, the
+	 * archive is loaded first.</p>
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the archive cannot be read, or the server
+	 * cannot be started.
+	 */
+	public synchronized void start()
+	throws IOException {
+		if( m_httpServer != null ) {
+			throw( new IllegalStateException("Already started") );
+		}
+
+		if( m_mode == Mode.REPLAY ) {
+			readArchive();
+		}
+
+		m_httpServer = HttpServer.create( new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0 );
+		m_httpServer.createContext( "/", new HttpHandler() {
+			@Override
+			public void handle( final HttpExchange exchange )
+			throws IOException {
+				try {
+					serve( exchange );
+				} finally {
+					exchange.close();
+				}
+			}
+		} );
+		m_executorService = Executors.newFixedThreadPool( HANDLER_THREAD_COUNT );
+		m_httpServer.setExecutor( m_executorService );
+		m_httpServer.start();
+	}
+
+	/**
+	 * <p>Stop serving.  When recording, the archive is written.</p>
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the archive cannot be written.
+	 */
+	public synchronized void stop()
+	throws IOException {
+		if( m_httpServer == null ) {
+			return;
+		}
+
+		m_httpServer.stop( 0 );
+		m_executorService.shutdown();
+		m_httpServer = null;
+		m_executorService = null;
+
+		if( m_mode == Mode.RECORD ) {
+			writeArchive();
+		}
+	}
+
+	/**
+	 * <p>Map a URL of the site to the server.</p>
+	 *
+	 * @param url
+	 * The URL.
+	 * @return
+	 * Returns the URL with the same path and query on the server, or the URL
+	 * itself if it is not on the site.
+	 */
+	public String rewrite( final String url ) {
+		if( url.startsWith(m_origin + "/") == false ) {
+			return( url );
+		}
+		final int port = m_httpServer.getAddress().getPort();
+		return( "http://127.0.0.1:" + port + url.substring(m_origin.length()) );
+	}
+
+	public Mode getMode() {
+		return( m_mode );
+	}
+
+	/**
+	 * <p>Get the number of responses held.</p>
+	 *
+	 * @return
+	 * Returns the count.
+	 */
+	public int getResponseCount() {
+		return( m_responses.size() );
+	}
+
+	/**
+	 * <p>Answer a request.</p>
+	 *
+	 * @param exchange
+	 * The request.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the response cannot be sent.
+	 */
+	private void serve( final HttpExchange exchange )
+	throws IOException {
+		final String method = exchange.getRequestMethod();
+		final boolean head = method.equals( "HEAD" );
+		if( (method.equals("GET") == false) && (head == false) ) {
+			exchange.sendResponseHeaders( HttpURLConnection.HTTP_BAD_METHOD, -1 );
+			return;
+		}
+
+		final String key = exchange.getRequestURI().getRawPath()
+				+ ((exchange.getRequestURI().getRawQuery() != null) ? "?" + exchange.getRequestURI().getRawQuery() : "");
+		Response response = m_responses.get( key );
+		if( (response == null) && (m_mode == Mode.RECORD) ) {
+			response = fetch( key );
+			m_responses.put( key, response );
+		}
+		if( response == null ) {
+			exchange.sendResponseHeaders( HttpURLConnection.HTTP_NOT_FOUND, -1 );
+			return;
+		}
+
+		if( response.m_contentType.length() > 0 ) {
+			exchange.getResponseHeaders().set( "Content-Type", response.m_contentType );
+		}
+		if( response.m_location.length() > 0 ) {
+			exchange.getResponseHeaders().set( "Location", response.m_location );
+		}
+		exchange.getResponseHeaders().set( "Cache-Control", "no-cache" );
+		if( (head == true) || (response.m_body.length == 0) ) {
+			exchange.sendResponseHeaders( response.m_status, -1 );
+		} else {
+			exchange.sendResponseHeaders( response.m_status, response.m_body.length );
+			exchange.getResponseBody().write( response.m_body );
+		}
+	}
+
+	/**
+	 * <p>Fetch a resource from the site.</p>
+	 *
+	 * @param key
+	 * The path and query.
+	 * @return
+	 * Returns the response.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the site cannot be reached.
+	 */
+	private Response fetch( final String key )
+	throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) new URL( m_origin + key ).openConnection();
+		try {
+			connection.setInstanceFollowRedirects( false );
+			connection.setConnectTimeout( CONNECT_TIMEOUT_MILLIS );
+			connection.setReadTimeout( READ_TIMEOUT_MILLIS );
+			// No Accept-Encoding: keep bodies uncompressed, as they are served
+			connection.setRequestProperty( "Accept", "*/*" );
+
+			final int status = connection.getResponseCode();
+			final String contentType = connection.getContentType();
+			String location = connection.getHeaderField( "Location" );
+			if( (location != null)
+					&& (location.startsWith(m_origin + "/") == true) ) {
+				location = location.substring( m_origin.length() );
+			}
+			final InputStream inputStream = (status >= HttpURLConnection.HTTP_BAD_REQUEST)
+					? connection.getErrorStream()
+					: connection.getInputStream();
+			final byte[] body = (inputStream != null) ? readFully( inputStream ) : new byte[0];
+			final Response result = new Response( status, (contentType != null) ? contentType : "",
+					(location != null) ? location : "", body );
+			return( result );
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	private void readArchive()
+	throws IOException {
+		final DataInputStream inputStream = new DataInputStream(
+				new GZIPInputStream(new FileInputStream(m_archiveFile)) );
+		try {
+			if( (inputStream.readInt() != ARCHIVE_MAGIC)
+					|| (inputStream.readInt() != ARCHIVE_VERSION) ) {
+				throw( new IOException("Not a fixture archive: " + m_archiveFile) );
+			}
+			final String origin = inputStream.readUTF();
+			if( origin.equals(m_origin) == false ) {
+				throw( new IOException("Archive " + m_archiveFile + " was recorded for " + origin) );
+			}
+			final int count = inputStream.readInt();
+			for( int i = 0; i < count; i++ ) {
+				final String key = inputStream.readUTF();
+				final int status = inputStream.readInt();
+				final String contentType = inputStream.readUTF();
+				final String location = inputStream.readUTF();
+				final byte[] body = new byte[inputStream.readInt()];
+				inputStream.readFully( body );
+				m_responses.put( key, new Response(status, contentType, location, body) );
+			}
+		} finally {
+			inputStream.close();
+		}
+	}
+
+	/**
+	 * <p>Write the archive by way of a temporary file, so that an interrupted
+	 * recording does not destroy the previous archive.</p>
+	 */
+	private void writeArchive()
+	throws IOException {
+		final File directory = m_archiveFile.getAbsoluteFile().getParentFile();
+		if( (directory.isDirectory() == false)
+				&& (directory.mkdirs() == false) ) {
+			throw( new IOException("Cannot create directory: " + directory) );
+		}
+		final File temporaryFile = new File( directory, m_archiveFile.getName() + ".tmp" );
+		final DataOutputStream outputStream = new DataOutputStream(
+				new GZIPOutputStream(new FileOutputStream(temporaryFile)) );
+		try {
+			outputStream.writeInt( ARCHIVE_MAGIC );
+			outputStream.writeInt( ARCHIVE_VERSION );
+			outputStream.writeUTF( m_origin );
+			outputStream.writeInt( m_responses.size() );
+			for( Map.Entry<String, Response> entry : m_responses.entrySet() ) {
+				final Response response = entry.getValue();
+				outputStream.writeUTF( entry.getKey() );
+				outputStream.writeInt( response.m_status );
+				outputStream.writeUTF( response.m_contentType );
+				outputStream.writeUTF( response.m_location );
+				outputStream.writeInt( response.m_body.length );
+				outputStream.write( response.m_body );
+			}
+		} finally {
+			outputStream.close();
+		}
+		Files.move( temporaryFile.toPath(), m_archiveFile.toPath(),
+				StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Create a fixture server for the site of the specified URL, as
+	 * configured by the <code>sqs.qa.fixtureMode</code> and
+	 * <code>sqs.qa.fixtureArchive</code> system properties.  The archive
+	 * defaults to <code>fixtures/<i>host</i>.fixture.gz</code> in the
+	 * artifact directory.</p>
+	 *
+	 * @param url
+	 * A URL of the site under test.
+	 * @return
+	 * Returns the server, or <code>null</code> if no mode is configured.
+	 *
+	 * @throws IllegalArgumentException
+	 * This exception is thrown if the mode or URL is invalid.
+	 */
+	public static FixtureServer fromProperties( final String url ) {
+		final String modeName = System.getProperty( MODE_PROPERTY );
+		if( modeName == null ) {
+			return( null );
+		}
+		final Mode mode = Mode.valueOf( modeName.toUpperCase() );
+
+		final URI uri;
+		try {
+			uri = new URI( url );
+		} catch( URISyntaxException uriSyntaxException ) {
+			throw( new IllegalArgumentException("Invalid URL: " + url, uriSyntaxException) );
+		}
+		final String origin = uri.getScheme() + "://" + uri.getRawAuthority();
+
+		final String archivePath = System.getProperty( ARCHIVE_PROPERTY );
+		final File archiveFile = (archivePath != null)
+				? new File( archivePath )
+				: new File( new File(ChromeDriverTest.getArtifactDirectory(), "fixtures"), uri.getHost() + ".fixture.gz" );
+		return( new FixtureServer(mode, origin, archiveFile) );
+	}
+
+	private static byte[] readFully( final InputStream inputStream )
+	throws IOException {
+		try {
+			final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[8192];
+			int count;
+			while( (count = inputStream.read(buffer)) >= 0 ) {
+				outputStream.write( buffer, 0, count );
+			}
+			return( outputStream.toByteArray() );
+		} finally {
+			inputStream.close();
+		}
+	}
+
+
+	//
+	// Nested classes
+	//
+
+	public enum Mode
+	{
+		RECORD,
+		REPLAY;
+	}
+
+	/**
+	 * <p>A recorded response.</p>
+	 */
+	private static final class Response
+	{
+		final int m_status;
+
+		final String m_contentType;
+
+		final String m_location;
+
+		final byte[] m_body;
+
+		Response( final int status, final String contentType, final String location, final byte[] body ) {
+			super();
+			m_status = status;
+			m_contentType = contentType;
+			m_location = location;
+			m_body = body;
+		}
+	}
+}
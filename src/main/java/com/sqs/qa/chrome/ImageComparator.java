@@ -0,0 +1,241 @@
+/*
+ * com/sqs/qa/chrome/ImageComparator.java
+ *
+ * ImageComparator object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+
+/**
+ * <p>Compares decoded images pixel by pixel.</p>
+ *
+ * <p>Images are compared as ARGB rasters rather than as encoded files, so
+ * differences in PNG encoding do not matter.  Two pixels match if none of
+ * their channels differ by more than the channel tolerance.  Optionally, a
+ * differing pixel is ignored if it looks like anti-aliasing (an edge shifted
+ * by up to one pixel).  The comparison stops as soon as more pixels differ
+ * than the budget allows.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class ImageComparator
+{
+	//
+	// Instance fields
+	//
+
+	/**
+	 * <p>The maximum difference, per channel, for two pixels to match.</p>
+	 */
+	private final int m_channelTolerance;
+
+	/**
+	 * <p>The maximum number of differing pixels for two images to match.</p>
+	 */
+	private final int m_maximumDifferingPixels;
+
+	private final boolean m_ignoreAntiAliasing;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link ImageComparator}.</p>
+	 *
+	 * @param channelTolerance
+	 * The maximum difference, per channel (0 - 255), for two pixels to match.
+	 * @param maximumDifferingPixels
+	 * The maximum number of differing pixels for two images to match.
+	 * @param ignoreAntiAliasing
+	 * Specifies whether pixels that look like anti-aliasing are ignored
+	 * (<code>true</code>) or counted as differing (<code>false</code>).
+	 */
+	public ImageComparator( final int channelTolerance, final int maximumDifferingPixels,
+			final boolean ignoreAntiAliasing ) {
+		super();
+
+		if( (channelTolerance < 0) || (channelTolerance > 255) ) {
+			throw( new IllegalArgumentException("'channelTolerance' out of range: " + channelTolerance) );
+		} else if( maximumDifferingPixels < 0 ) {
+			throw( new IllegalArgumentException("'maximumDifferingPixels' is negative: " + maximumDifferingPixels) );
+		}
+
+		m_channelTolerance = channelTolerance;
+		m_maximumDifferingPixels = maximumDifferingPixels;
+		m_ignoreAntiAliasing = ignoreAntiAliasing;
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	/**
+	 * <p>Compare two images.</p>
+	 *
+	 * @param actual
+	 * The captured image.
+	 * @param expected
+	 * The reference image.
+	 * @return
+	 * Returns the comparison result.
+	 */
+	public ImageComparison compare( final BufferedImage actual, final BufferedImage expected ) {
+		if( (actual.getWidth() != expected.getWidth())
+				|| (actual.getHeight() != expected.getHeight()) ) {
+			return( ImageComparison.sizeMismatch(actual.getWidth(), actual.getHeight(),
+					expected.getWidth(), expected.getHeight()) );
+		}
+
+		final ImageComparison result =
+				compare( toArgb(actual), toArgb(expected), actual.getWidth(), actual.getHeight() );
+		return( result );
+	}
+
+	/**
+	 * <p>Compare two ARGB rasters of the same size.</p>
+	 *
+	 * @param actual
+	 * The captured raster, in row-major order.
+	 * @param expected
+	 * The reference raster, in row-major order.
+	 * @param width
+	 * The raster width.
+	 * @param height
+	 * The raster height.
+	 * @return
+	 * Returns the comparison result.
+	 */
+	public ImageComparison compare( final int[] actual, final int[] expected,
+			final int width, final int height ) {
+		if( (actual.length != width * height)
+				|| (expected.length != width * height) ) {
+			throw( new IllegalArgumentException("Raster sizes do not match the dimensions") );
+		}
+
+		int differingPixelCount = 0;
+		int antiAliasedPixelCount = 0;
+		int minimumX = Integer.MAX_VALUE;
+		int minimumY = Integer.MAX_VALUE;
+		int maximumX = -1;
+		int maximumY = -1;
+		boolean exceeded = false;
+
+		for( int y = 0; (y < height) && (exceeded == false); y++ ) {
+			final int rowOffset = y * width;
+			for( int x = 0; x < width; x++ ) {
+				final int index = rowOffset + x;
+				if( (actual[index] == expected[index])
+						|| (matches(actual[index], expected[index]) == true) ) {
+					continue;
+				}
+
+				if( (m_ignoreAntiAliasing == true)
+						&& (isAntiAliased(actual, expected, width, height, x, y) == true) ) {
+					antiAliasedPixelCount++;
+					continue;
+				}
+
+				differingPixelCount++;
+				minimumX = Math.min( minimumX, x );
+				minimumY = Math.min( minimumY, y );
+				maximumX = Math.max( maximumX, x );
+				maximumY = Math.max( maximumY, y );
+				if( differingPixelCount > m_maximumDifferingPixels ) {
+					// Over budget; the remaining pixels cannot change the outcome
+					exceeded = true;
+					break;
+				}
+			}
+		}
+
+		Rectangle differenceBounds = null;
+		if( differingPixelCount > 0 ) {
+			differenceBounds = new Rectangle( minimumX, minimumY, maximumX - minimumX + 1, maximumY - minimumY + 1 );
+		}
+
+		final ImageComparison result = new ImageComparison( exceeded == false,
+				differingPixelCount, antiAliasedPixelCount, differenceBounds, exceeded );
+		return( result );
+	}
+
+	/**
+	 * <p>Determine whether two pixels match within the channel
+	 * tolerance.</p>
+	 *
+	 * @param pixel1
+	 * The first ARGB pixel.
+	 * @param pixel2
+	 * The second ARGB pixel.
+	 * @return
+	 * Returns <code>true</code> if the pixels match.
+	 */
+	private boolean matches( final int pixel1, final int pixel2 ) {
+		for( int shift = 0; shift < 32; shift += 8 ) {
+			final int channel1 = (pixel1 >>> shift) & 0xff;
+			final int channel2 = (pixel2 >>> shift) & 0xff;
+			if( Math.abs(channel1 - channel2) > m_channelTolerance ) {
+				return( false );
+			}
+		}
+		return( true );
+	}
+
+	/**
+	 * <p>Determine whether a differing pixel looks like anti-aliasing: each
+	 * image's pixel is found (within tolerance) among the neighbours of the
+	 * same position in the other image, as happens when an edge shifts by
+	 * up to one pixel.</p>
+	 */
+	private boolean isAntiAliased( final int[] actual, final int[] expected,
+			final int width, final int height, final int x, final int y ) {
+		final int index = y * width + x;
+		final boolean result =
+				(hasMatchingNeighbour(expected, actual[index], width, height, x, y) == true)
+				&& (hasMatchingNeighbour(actual, expected[index], width, height, x, y) == true);
+		return( result );
+	}
+
+	private boolean hasMatchingNeighbour( final int[] raster, final int pixel,
+			final int width, final int height, final int x, final int y ) {
+		for( int neighbourY = Math.max(0, y - 1); neighbourY <= Math.min(height - 1, y + 1); neighbourY++ ) {
+			for( int neighbourX = Math.max(0, x - 1); neighbourX <= Math.min(width - 1, x + 1); neighbourX++ ) {
+				if( (neighbourX == x) && (neighbourY == y) ) {
+					continue;
+				}
+				if( matches(raster[neighbourY * width + neighbourX], pixel) == true ) {
+					return( true );
+				}
+			}
+		}
+		return( false );
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Extract the ARGB raster of an image.</p>
+	 *
+	 * @param bufferedImage
+	 * The image.
+	 * @return
+	 * Returns the pixels, in row-major order.
+	 */
+	public static int[] toArgb( final BufferedImage bufferedImage ) {
+		final int width = bufferedImage.getWidth();
+		final int height = bufferedImage.getHeight();
+		final int[] result = bufferedImage.getRGB( 0, 0, width, height, null, 0, width );
+		return( result );
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * com/sqs/qa/chrome/ImageComparison.java
+ *
+ * ImageComparison object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.awt.Rectangle;
+
+
+/**
+ * <p>The result of comparing two images with an {@link ImageComparator}.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class ImageComparison
+{
+	//
+	// Instance fields
+	//
+
+	private final boolean m_matching;
+
+	private final int m_differingPixelCount;
+
+	private final int m_antiAliasedPixelCount;
+
+	/**
+	 * <p>The bounding box of the differing pixels, or <code>null</code> if
+	 * none differ.</p>
+	 */
+	private final Rectangle m_differenceBounds;
+
+	/**
+	 * <p>Flag to indicate that the comparison stopped early because the
+	 * differing pixel budget was exceeded.</p>
+	 */
+	private final boolean m_budgetExceeded;
+
+	/**
+	 * <p>Flag to indicate that the images have different dimensions.</p>
+	 */
+	private final boolean m_sizeMismatch;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link ImageComparison} for images of the same
+	 * size.</p>
+	 *
+	 * @param matching
+	 * Specifies whether the images match.
+	 * @param differingPixelCount
+	 * The number of differing pixels found.
+	 * @param antiAliasedPixelCount
+	 * The number of differing pixels ignored as anti-aliasing.
+	 * @param differenceBounds
+	 * The bounding box of the differing pixels, or <code>null</code>.
+	 * @param budgetExceeded
+	 * Specifies whether the comparison stopped early.
+	 */
+	public ImageComparison( final boolean matching, final int differingPixelCount,
+			final int antiAliasedPixelCount, final Rectangle differenceBounds, final boolean budgetExceeded ) {
+		this( matching, differingPixelCount, antiAliasedPixelCount, differenceBounds, budgetExceeded, false );
+	}
+
+	private ImageComparison( final boolean matching, final int differingPixelCount,
+			final int antiAliasedPixelCount, final Rectangle differenceBounds, final boolean budgetExceeded,
+			final boolean sizeMismatch ) {
+		super();
+		m_matching = matching;
+		m_differingPixelCount = differingPixelCount;
+		m_antiAliasedPixelCount = antiAliasedPixelCount;
+		m_differenceBounds = differenceBounds;
+		m_budgetExceeded = budgetExceeded;
+		m_sizeMismatch = sizeMismatch;
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	public boolean isMatching() {
+		return( m_matching );
+	}
+
+	/**
+	 * <p>Get the number of differing pixels.  If the budget was exceeded, this
+	 * is the number found before the comparison stopped.</p>
+	 *
+	 * @return
+	 * Returns the pixel count.
+	 */
+	public int getDifferingPixelCount() {
+		return( m_differingPixelCount );
+	}
+
+	public int getAntiAliasedPixelCount() {
+		return( m_antiAliasedPixelCount );
+	}
+
+	public Rectangle getDifferenceBounds() {
+		return( m_differenceBounds );
+	}
+
+	public boolean isBudgetExceeded() {
+		return( m_budgetExceeded );
+	}
+
+	public boolean isSizeMismatch() {
+		return( m_sizeMismatch );
+	}
+
+	@Override
+	public String toString() {
+		final String result;
+		if( m_sizeMismatch == true ) {
+			result = String.format( "size mismatch, differences within %s", m_differenceBounds );
+		} else if( m_differingPixelCount == 0 ) {
+			result = String.format( "identical (%d anti-aliased pixels ignored)", m_antiAliasedPixelCount );
+		} else {
+			result = String.format( "%s%d differing pixels within [x=%d, y=%d, width=%d, height=%d]",
+					(m_budgetExceeded == true) ? "at least " : "",
+					m_differingPixelCount,
+					m_differenceBounds.x, m_differenceBounds.y,
+					m_differenceBounds.width, m_differenceBounds.height );
+		}
+		return( result );
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Create the result for images with different dimensions.  The
+	 * difference bounds cover both images.</p>
+	 *
+	 * @param actualWidth
+	 * The width of the captured image.
+	 * @param actualHeight
+	 * The height of the captured image.
+	 * @param expectedWidth
+	 * The width of the reference image.
+	 * @param expectedHeight
+	 * The height of the reference image.
+	 * @return
+	 * Returns the result.
+	 */
+	static ImageComparison sizeMismatch( final int actualWidth, final int actualHeight,
+			final int expectedWidth, final int expectedHeight ) {
+		final Rectangle differenceBounds = new Rectangle( 0, 0,
+				Math.max(actualWidth, expectedWidth), Math.max(actualHeight, expectedHeight) );
+		final ImageComparison result = new ImageComparison( false, -1, 0, differenceBounds, false, true );
+		return( result );
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * com/sqs/qa/chrome/JUnitXmlEventSink.java
+ *
+ * JUnitXmlEventSink object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+
+/**
+ * <p>Writes {@link TestEvent}s as a JUnit XML report.</p>
+ *
+ * <p>The <code>tests</code> and <code>failures</code> attributes of a
+ * <code>&lt;testsuite&gt;</code> precede its test cases, so a single suite
+ * element could only be written once the whole run is over.  Instead, each
+ * test is written as its own <code>&lt;testsuite&gt;</code> within a
+ * <code>&lt;testsuites&gt;</code> document as soon as it finishes; only the
+ * failures of the current test are held in memory.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class JUnitXmlEventSink
+implements TestEventSink
+{
+	//
+	// Instance fields
+	//
+
+	private final Writer m_writer;
+
+	/**
+	 * <p>The <code>&lt;failure&gt;</code> and <code>&lt;error&gt;</code>
+	 * elements of the current test.</p>
+	 */
+	private final StringBuilder m_failureBuilder;
+
+	/**
+	 * <p>The standard output of the current test, which lists its
+	 * artifacts.</p>
+	 */
+	private final StringBuilder m_outputBuilder;
+
+	private int m_failureCount;
+
+	private int m_errorCount;
+
+	private final SimpleDateFormat m_timestampFormat;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link JUnitXmlEventSink}.</p>
+	 *
+	 * @param writer
+	 * The writer, which is closed when the sink is closed.
+	 */
+	public JUnitXmlEventSink( final Writer writer ) {
+		super();
+
+		if( writer == null ) {
+			throw( new NullPointerException("'writer' is null!") );
+		}
+
+		m_writer = writer;
+		m_failureBuilder = new StringBuilder();
+		m_outputBuilder = new StringBuilder();
+		m_timestampFormat = new SimpleDateFormat( "yyyy-MM-dd'T'HH:mm:ss" );
+		m_timestampFormat.setTimeZone( TimeZone.getTimeZone("UTC") );
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	@Override
+	public void accept( final TestEvent event )
+	throws IOException {
+		switch( event.getType() ) {
+		case SUITE_STARTED:
+			m_writer.write( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" );
+			m_writer.write( "<testsuites name=\"" + escape(event.getName()) + "\">\n" );
+			break;
+		case TEST_STARTED:
+			m_failureBuilder.setLength( 0 );
+			m_outputBuilder.setLength( 0 );
+			m_failureCount = 0;
+			m_errorCount = 0;
+			break;
+		case CHECK_FAILED:
+			m_failureBuilder.append( "      <failure type=\"check\" message=\"" )
+					.append( escape(event.getMessage()) ).append( "\">" )
+					.append( escape(event.getDetail()) ).append( "</failure>\n" );
+			m_failureCount++;
+			break;
+		case TEST_ERROR:
+			m_failureBuilder.append( "      <error message=\"" )
+					.append( escape(event.getMessage()) ).append( "\">" )
+					.append( escape(event.getDetail()) ).append( "</error>\n" );
+			m_errorCount++;
+			break;
+		case ARTIFACT:
+			// Attachment convention understood by Jenkins
+			m_outputBuilder.append( "[[ATTACHMENT|" ).append( escape(event.getMessage()) ).append( "]]\n" );
+			break;
+		case TEST_FINISHED:
+			writeTest( event );
+			break;
+		case SUITE_FINISHED:
+			m_writer.write( "</testsuites>\n" );
+			m_writer.flush();
+			break;
+		}
+	}
+
+	@Override
+	public void close()
+	throws IOException {
+		m_writer.close();
+	}
+
+	private void writeTest( final TestEvent event )
+	throws IOException {
+		final String className = event.getName();
+		final String simpleName = className.substring( className.lastIndexOf('.') + 1 );
+		final String time = String.format( Locale.ROOT, "%.3f", event.getDurationMillis() / 1000.0 );
+		final String timestamp = m_timestampFormat.format(
+				new Date(event.getTimestampMillis() - event.getDurationMillis()) );
+
+		final StringBuilder sb = new StringBuilder();
+		sb.append( "  <testsuite name=\"" ).append( escape(className) )
+				.append( "\" tests=\"1\" failures=\"" ).append( m_failureCount )
+				.append( "\" errors=\"" ).append( m_errorCount )
+				.append( "\" time=\"" ).append( time )
+				.append( "\" timestamp=\"" ).append( timestamp ).append( "\">\n" );
+		if( event.getPhaseTimings() != null ) {
+			sb.append( "    <properties>\n" );
+			for( TestPhase phase : TestPhase.values() ) {
+				sb.append( "      <property name=\"phase." ).append( phase.getLabel() )
+						.append( "\" value=\"" )
+						.append( String.format(Locale.ROOT, "%.3f", event.getPhaseTimings().getMillis(phase) / 1000.0) )
+						.append( "\"/>\n" );
+			}
+			sb.append( "    </properties>\n" );
+		}
+		sb.append( "    <testcase classname=\"" ).append( escape(className) )
+				.append( "\" name=\"" ).append( escape(simpleName) )
+				.append( "\" time=\"" ).append( time ).append( "\">\n" );
+		sb.append( m_failureBuilder );
+		if( m_outputBuilder.length() > 0 ) {
+			sb.append( "      <system-out>" ).append( m_outputBuilder ).append( "</system-out>\n" );
+		}
+		sb.append( "    </testcase>\n" );
+		sb.append( "  </testsuite>\n" );
+		m_writer.write( sb.toString() );
+		m_writer.flush();
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Escape text for use in an attribute value or character data.
+	 * Characters not allowed in XML 1.0 are dropped.</p>
+	 */
+	private static String escape( final String text ) {
+		if( text == null ) {
+			return( "" );
+		}
+		final StringBuilder sb = new StringBuilder( text.length() );
+		for( int i = 0; i < text.length(); i++ ) {
+			final char c = text.charAt( i );
+			switch( c ) {
+			case '&':
+				sb.append( "&amp;" );
+				break;
+			case '<':
+				sb.append( "&lt;" );
+				break;
+			case '>':
+				sb.append( "&gt;" );
+				break;
+			case '"':
+				sb.append( "&quot;" );
+				break;
+			default:
+				if( (c >= 0x20) || (c == '\n') || (c == '\r') || (c == '\t') ) {
+					sb.append( c );
+				}
+				break;
+			}
+		}
+		return( sb.toString() );
+	}
+}
@@ -0,0 +1,350 @@
+/*
+ * com/sqs/qa/chrome/JsonlEventReader.java
+ *
+ * JsonlEventReader object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * <p>Reads back the {@link TestEvent}s written by a
+ * {@link JsonlEventSink}.</p>
+ *
+ * <p>Only the subset of JSON the sink writes is understood: an object per
+ * line whose members are strings, numbers, booleans or (for the phase
+ * timings) an object of numbers.  Lines that do not start with <code>{</code> are
+ * skipped, so the stream may be interleaved with other output.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class JsonlEventReader
+{
+	//
+	// Instance fields
+	//
+
+	private final BufferedReader m_reader;
+
+	/**
+	 * <p>The duration of the suite, once its <code>SUITE_FINISHED</code>
+	 * event has been read.</p>
+	 */
+	private long m_suiteDurationMillis;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link JsonlEventReader}.</p>
+	 *
+	 * @param reader
+	 * The reader, which is closed when the event reader is closed.
+	 */
+	public JsonlEventReader( final Reader reader ) {
+		super();
+
+		if( reader == null ) {
+			throw( new NullPointerException("'reader' is null!") );
+		}
+
+		m_reader = new BufferedReader( reader );
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	/**
+	 * <p>Read the next event.</p>
+	 *
+	 * @return
+	 * Returns the event, or <code>null</code> at the end of the stream.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the stream cannot be read or an event is
+	 * malformed.
+	 */
+	public TestEvent read()
+	throws IOException {
+		String line;
+		while( (line = m_reader.readLine()) != null ) {
+			if( line.startsWith("{") == true ) {
+				return( parse(line) );
+			}
+		}
+		return( null );
+	}
+
+	/**
+	 * <p>Read the events of the next test, from <code>TEST_STARTED</code> to
+	 * <code>TEST_FINISHED</code>.  Suite events are skipped, as are the
+	 * events of a test cut off by the end of the stream.</p>
+	 *
+	 * @return
+	 * Returns the events, or <code>null</code> at the end of the stream.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the stream cannot be read or an event is
+	 * malformed.
+	 */
+	public List<TestEvent> readTest()
+	throws IOException {
+		List<TestEvent> result = null;
+		TestEvent event;
+		while( (event = read()) != null ) {
+			switch( event.getType() ) {
+			case SUITE_STARTED:
+				break;
+			case SUITE_FINISHED:
+				m_suiteDurationMillis = event.getDurationMillis();
+				break;
+			case TEST_STARTED:
+				result = new ArrayList<TestEvent>();
+				result.add( event );
+				break;
+			case TEST_FINISHED:
+				if( result != null ) {
+					result.add( event );
+					return( result );
+				}
+				break;
+			default:
+				if( result != null ) {
+					result.add( event );
+				}
+				break;
+			}
+		}
+		return( null );
+	}
+
+	/**
+	 * <p>Get the duration of the suite, as reported by its
+	 * <code>SUITE_FINISHED</code> event.</p>
+	 *
+	 * @return
+	 * Returns the duration, or 0 if the event has not been read.
+	 */
+	public long getSuiteDurationMillis() {
+		return( m_suiteDurationMillis );
+	}
+
+	public void close()
+	throws IOException {
+		m_reader.close();
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Parse an event from one line of JSON.</p>
+	 *
+	 * @param line
+	 * The line.
+	 * @return
+	 * Returns the event.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the line is not a valid event.
+	 */
+	public static TestEvent parse( final String line )
+	throws IOException {
+		final Map<String, Object> object = new Parser( line ).parseObject();
+		final TestEvent.Type type;
+		try {
+			type = TestEvent.Type.valueOf( (String) object.get("type") );
+		} catch( RuntimeException runtimeException ) {
+			throw( new IOException("Unknown event type: " + line) );
+		}
+
+		PhaseTimings phaseTimings = null;
+		if( object.get("phaseMillis") instanceof Map<?, ?> ) {
+			final Map<?, ?> phaseMillis = (Map<?, ?>) object.get( "phaseMillis" );
+			phaseTimings = new PhaseTimings();
+			for( TestPhase phase : TestPhase.values() ) {
+				final Object millis = phaseMillis.get( phase.getLabel() );
+				if( millis instanceof Number ) {
+					phaseTimings.add( phase,
+							Math.round(((Number) millis).doubleValue() * TimeUnit.MILLISECONDS.toNanos(1)) );
+				}
+			}
+		}
+
+		final TestEvent result = TestEvent.of( type,
+				getLong(object, "time"),
+				(String) object.get( "name" ),
+				(String) object.get( "message" ),
+				(String) object.get( "detail" ),
+				getLong( object, "durationMillis" ),
+				// A finished test is one test; only the suite's count is written
+				(type == TestEvent.Type.TEST_FINISHED) ? 1 : (int) getLong( object, "tests" ),
+				(int) getLong( object, "errors" ),
+				phaseTimings,
+				Boolean.TRUE.equals( object.get("reused") ) );
+		return( result );
+	}
+
+	private static long getLong( final Map<String, Object> object, final String name ) {
+		final Object value = object.get( name );
+		return( (value instanceof Number) ? ((Number) value).longValue() : 0 );
+	}
+
+
+	//
+	// Nested classes
+	//
+
+	/**
+	 * <p>Recursive-descent parser for the JSON written by the sink.</p>
+	 */
+	private static final class Parser
+	{
+		private final String m_text;
+
+		private int m_position;
+
+		Parser( final String text ) {
+			super();
+			m_text = text;
+		}
+
+		Map<String, Object> parseObject()
+		throws IOException {
+			final Map<String, Object> result = new HashMap<String, Object>();
+			expect( '{' );
+			if( peek() == '}' ) {
+				m_position++;
+				return( result );
+			}
+			while( true ) {
+				final String name = parseString();
+				expect( ':' );
+				result.put( name, parseValue() );
+				final char c = next();
+				if( c == '}' ) {
+					return( result );
+				} else if( c != ',' ) {
+					throw( error() );
+				}
+			}
+		}
+
+		private Object parseValue()
+		throws IOException {
+			final char c = peek();
+			if( c == '"' ) {
+				return( parseString() );
+			} else if( c == '{' ) {
+				return( parseObject() );
+			} else if( m_text.startsWith("true", m_position) == true ) {
+				m_position += 4;
+				return( Boolean.TRUE );
+			} else if( m_text.startsWith("false", m_position) == true ) {
+				m_position += 5;
+				return( Boolean.FALSE );
+			}
+			final int start = m_position;
+			while( (m_position < m_text.length())
+					&& ("+-.eE0123456789".indexOf(m_text.charAt(m_position)) >= 0) ) {
+				m_position++;
+			}
+			final String number = m_text.substring( start, m_position );
+			try {
+				if( (number.indexOf('.') >= 0)
+						|| (number.indexOf('e') >= 0)
+						|| (number.indexOf('E') >= 0) ) {
+					return( Double.valueOf(number) );
+				}
+				return( Long.valueOf(number) );
+			} catch( NumberFormatException numberFormatException ) {
+				throw( error() );
+			}
+		}
+
+		private String parseString()
+		throws IOException {
+			expect( '"' );
+			final StringBuilder sb = new StringBuilder();
+			while( true ) {
+				final char c = next();
+				if( c == '"' ) {
+					return( sb.toString() );
+				} else if( c != '\\' ) {
+					sb.append( c );
+					continue;
+				}
+				final char escaped = next();
+				switch( escaped ) {
+				case 'n':
+					sb.append( '\n' );
+					break;
+				case 'r':
+					sb.append( '\r' );
+					break;
+				case 't':
+					sb.append( '\t' );
+					break;
+				case 'u':
+					if( m_position + 4 > m_text.length() ) {
+						throw( error() );
+					}
+					try {
+						sb.append( (char) Integer.parseInt(m_text.substring(m_position, m_position + 4), 16) );
+					} catch( NumberFormatException numberFormatException ) {
+						throw( error() );
+					}
+					m_position += 4;
+					break;
+				default:
+					// \" \\ \/
+					sb.append( escaped );
+					break;
+				}
+			}
+		}
+
+		private void expect( final char expected )
+		throws IOException {
+			if( next() != expected ) {
+				throw( error() );
+			}
+		}
+
+		private char peek()
+		throws IOException {
+			if( m_position >= m_text.length() ) {
+				throw( error() );
+			}
+			return( m_text.charAt(m_position) );
+		}
+
+		private char next()
+		throws IOException {
+			final char result = peek();
+			m_position++;
+			return( result );
+		}
+
+		private IOException error() {
+			return( new IOException("Malformed event at column " + (m_position + 1) + ": " + m_text) );
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * com/sqs/qa/chrome/JsonlEventSink.java
+ *
+ * JsonlEventSink object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+
+/**
+ * <p>Writes each {@link TestEvent} as one JSON object per line (JSON
+ * Lines).  The writer is flushed at the end of every test, so the file can
+ * be followed while the suite executes.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class JsonlEventSink
+implements TestEventSink
+{
+	//
+	// Instance fields
+	//
+
+	private final Writer m_writer;
+
+	private final StringBuilder m_lineBuilder;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link JsonlEventSink}.</p>
+	 *
+	 * @param writer
+	 * The writer, which is closed when the sink is closed.
+	 */
+	public JsonlEventSink( final Writer writer ) {
+		super();
+
+		if( writer == null ) {
+			throw( new NullPointerException("'writer' is null!") );
+		}
+
+		m_writer = writer;
+		m_lineBuilder = new StringBuilder();
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	@Override
+	public void accept( final TestEvent event )
+	throws IOException {
+		final StringBuilder sb = m_lineBuilder;
+		sb.setLength( 0 );
+		sb.append( "{\"type\":\"" ).append( event.getType() ).append( '"' );
+		sb.append( ",\"time\":" ).append( event.getTimestampMillis() );
+		appendString( sb, "name", event.getName() );
+		appendString( sb, "message", event.getMessage() );
+		appendString( sb, "detail", event.getDetail() );
+		switch( event.getType() ) {
+		case SUITE_FINISHED:
+			sb.append( ",\"tests\":" ).append( event.getTestCount() );
+			appendTotals( sb, event );
+			break;
+		case TEST_FINISHED:
+			appendTotals( sb, event );
+			break;
+		default:
+			break;
+		}
+		sb.append( "}\n" );
+		m_writer.write( sb.toString() );
+
+		if( (event.getType() == TestEvent.Type.TEST_FINISHED)
+				|| (event.getType() == TestEvent.Type.SUITE_FINISHED) ) {
+			m_writer.flush();
+		}
+	}
+
+	@Override
+	public void close()
+	throws IOException {
+		m_writer.close();
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Append the error count, duration and phase timings of a finished
+	 * test or suite.</p>
+	 */
+	private static void appendTotals( final StringBuilder sb, final TestEvent event ) {
+		sb.append( ",\"errors\":" ).append( event.getErrorCount() );
+		sb.append( ",\"durationMillis\":" ).append( event.getDurationMillis() );
+		if( event.isReused() == true ) {
+			sb.append( ",\"reused\":true" );
+		}
+		if( event.getPhaseTimings() != null ) {
+			sb.append( ",\"phaseMillis\":{" );
+			for( TestPhase phase : TestPhase.values() ) {
+				if( phase.ordinal() > 0 ) {
+					sb.append( ',' );
+				}
+				sb.append( '"' ).append( phase.getLabel() ).append( "\":" )
+						.append( String.format(Locale.ROOT, "%.3f", event.getPhaseTimings().getMillis(phase)) );
+			}
+			sb.append( '}' );
+		}
+	}
+
+	/**
+	 * <p>Append a string member, unless its value is <code>null</code>.</p>
+	 */
+	private static void appendString( final StringBuilder sb, final String name, final String value ) {
+		if( value == null ) {
+			return;
+		}
+		sb.append( ",\"" ).append( name ).append( "\":\"" );
+		for( int i = 0; i < value.length(); i++ ) {
+			final char c = value.charAt( i );
+			switch( c ) {
+			case '"':
+				sb.append( "\\\"" );
+				break;
+			case '\\':
+				sb.append( "\\\\" );
+				break;
+			case '\n':
+				sb.append( "\\n" );
+				break;
+			case '\r':
+				sb.append( "\\r" );
+				break;
+			case '\t':
+				sb.append( "\\t" );
+				break;
+			default:
+				if( c < 0x20 ) {
+					sb.append( String.format("\\u%04x", (int) c) );
+				} else {
+					sb.append( c );
+				}
+				break;
+			}
+		}
+		sb.append( '"' );
+	}
+}
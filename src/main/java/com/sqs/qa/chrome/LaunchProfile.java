@@ -0,0 +1,255 @@
+/*
+ * com/sqs/qa/chrome/LaunchProfile.java
+ *
+ * LaunchProfile object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.logging.LoggingPreferences;
+
+
+/**
+ * <p>Named ways of launching Chrome, selected per run with the
+ * <code>sqs.qa.profile</code> system property.</p>
+ *
+ * <p>The headless profiles disable extensions and the GPU and use a fixed
+ * window size, so screenshots are comparable between machines.  The
+ * blocking profile additionally has DevTools block requests the checks do
+ * not need (web fonts and analytics).  Any profile also blocks the URL
+ * patterns listed, comma-separated, in the <code>sqs.qa.blockedUrls</code>
+ * system property.  Blocked requests are counted from Chrome's performance
+ * log.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public enum LaunchProfile
+{
+	/**
+	 * <p>Headed Chrome with default options.</p>
+	 */
+	DEFAULT( false, Collections.<String>emptyList() ),
+
+	/**
+	 * <p>Headless Chrome.</p>
+	 */
+	HEADLESS( true, Collections.<String>emptyList() ),
+
+	/**
+	 * <p>Headless Chrome that blocks web fonts and analytics.</p>
+	 */
+	HEADLESS_BLOCKING( true, Arrays.asList(
+			"*.woff",
+			"*.woff2",
+			"*.ttf",
+			"*.otf",
+			"*.eot",
+			"*google-analytics.com*",
+			"*googletagmanager.com*",
+			"*doubleclick.net*",
+			"*optimizely.com*") );
+
+
+	//
+	// Constants
+	//
+
+	/**
+	 * <p>System property selecting the profile, such as
+	 * <code>headless-blocking</code>.</p>
+	 */
+	private static final String PROFILE_PROPERTY = "sqs.qa.profile";
+
+	/**
+	 * <p>System property listing additional URL patterns to block.</p>
+	 */
+	private static final String BLOCKED_URLS_PROPERTY = "sqs.qa.blockedUrls";
+
+	private static final String WINDOW_SIZE = "1280,1024";
+
+	/**
+	 * <p>The script timeout of every session, set at launch so that the
+	 * in-page waits of {@link ChromeDriverTest} need not change it.</p>
+	 */
+	static final long SCRIPT_TIMEOUT_MILLIS = 60000;
+
+
+	//
+	// Instance fields
+	//
+
+	private final boolean m_headless;
+
+	private final List<String> m_blockedUrlPatterns;
+
+
+	//
+	// Constructors
+	//
+
+	private LaunchProfile( final boolean headless, final List<String> blockedUrlPatterns ) {
+		m_headless = headless;
+		m_blockedUrlPatterns = blockedUrlPatterns;
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	/**
+	 * <p>Get the profile name, as used in the system property.</p>
+	 *
+	 * @return
+	 * Returns the name.
+	 */
+	public String getName() {
+		return( name().toLowerCase().replace('_', '-') );
+	}
+
+	/**
+	 * <p>Check whether the profile blocks requests, either itself or because
+	 * the <code>sqs.qa.blockedUrls</code> system property lists
+	 * patterns.</p>
+	 *
+	 * @return
+	 * Returns <code>true</code> if it does.
+	 */
+	public boolean isBlocking() {
+		return( getBlockedUrlPatterns().isEmpty() == false );
+	}
+
+	/**
+	 * <p>Get the URL patterns blocked by the profile, followed by those
+	 * listed in the <code>sqs.qa.blockedUrls</code> system property.</p>
+	 *
+	 * @return
+	 * Returns the patterns, in the form accepted by
+	 * <code>Network.setBlockedURLs</code>.
+	 */
+	public List<String> getBlockedUrlPatterns() {
+		final List<String> result = new ArrayList<String>( m_blockedUrlPatterns );
+		final String additionalPatterns = System.getProperty( BLOCKED_URLS_PROPERTY );
+		if( additionalPatterns != null ) {
+			for( String pattern : additionalPatterns.split(",") ) {
+				if( pattern.trim().length() > 0 ) {
+					result.add( pattern.trim() );
+				}
+			}
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Create the options with which to launch Chrome.</p>
+	 *
+	 * @return
+	 * Returns the options.
+	 */
+	public ChromeOptions createOptions() {
+		return( createOptions(null) );
+	}
+
+	/**
+	 * <p>Create the options with which to launch Chrome, or to attach to an
+	 * already running Chrome.</p>
+	 *
+	 * @param debuggerAddress
+	 * The <code>host:port</code> of the running Chrome, or <code>null</code>
+	 * to launch a new one.
+	 * @return
+	 * Returns the options.
+	 */
+	public ChromeOptions createOptions( final String debuggerAddress ) {
+		final ChromeOptions result = new ChromeOptions();
+		result.setScriptTimeout( Duration.ofMillis(SCRIPT_TIMEOUT_MILLIS) );
+		if( debuggerAddress != null ) {
+			// Launch arguments do not apply to a running browser
+			result.setExperimentalOption( "debuggerAddress", debuggerAddress );
+		} else if( m_headless == true ) {
+			result.addArguments( "--headless=new", "--disable-gpu", "--disable-extensions",
+					"--window-size=" + WINDOW_SIZE );
+		}
+		if( isBlocking() == true ) {
+			final LoggingPreferences loggingPreferences = new LoggingPreferences();
+			loggingPreferences.enable( LogType.PERFORMANCE, Level.ALL );
+			result.setCapability( "goog:loggingPrefs", loggingPreferences );
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Prepare a newly launched session.</p>
+	 *
+	 * @param webDriver
+	 * The session.
+	 */
+	public void initialise( final WebDriver webDriver ) {
+		final List<String> patterns = getBlockedUrlPatterns();
+		if( patterns.isEmpty() == true ) {
+			return;
+		}
+		DevTools.execute( webDriver, "Network.enable", new HashMap<String, Object>() );
+		final Map<String, Object> parameters = new HashMap<String, Object>();
+		parameters.put( "urls", patterns );
+		DevTools.execute( webDriver, "Network.setBlockedURLs", parameters );
+	}
+
+	/**
+	 * <p>Count the requests blocked since the session's performance log was
+	 * last read.  Reading the log also empties it.</p>
+	 *
+	 * @param webDriver
+	 * The session.
+	 * @return
+	 * Returns the count.
+	 */
+	public int countBlockedRequests( final WebDriver webDriver ) {
+		int result = 0;
+		if( isBlocking() == true ) {
+			for( LogEntry logEntry : webDriver.manage().logs().get(LogType.PERFORMANCE) ) {
+				final String message = logEntry.getMessage();
+				if( (message.contains("\"Network.loadingFailed\"") == true)
+						&& (message.contains("\"blockedReason\"") == true) ) {
+					result++;
+				}
+			}
+		}
+		return( result );
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Get the profile selected by the <code>sqs.qa.profile</code> system
+	 * property.</p>
+	 *
+	 * @return
+	 * Returns the profile; the default is {@link #DEFAULT}.
+	 *
+	 * @throws IllegalArgumentException
+	 * This exception is thrown if the property names no profile.
+	 */
+	public static LaunchProfile getSelected() {
+		final String name = System.getProperty( PROFILE_PROPERTY, DEFAULT.getName() );
+		return( valueOf(name.toUpperCase().replace('-', '_')) );
+	}
+}
@@ -10,11 +10,6 @@ package com.sqs.qa.chrome;
 
 import java.util.List;
 
-import org.openqa.selenium.By;
-import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
-
 
 /**
  * <p>A test to validate that all the buttons occurring in the left column
@@ -22,24 +17,10 @@ import org.openqa.selenium.chrome.ChromeDriver;
  *
  * @author Michael Gaugy (mgaugy@yahoo.com)
  */
+@ChromeTest( page = "challenging_dom", tags = "buttons", dependsOn = "large-2" )
 public class LeftColumnButtonStringCharactersTest
 extends ChromeDriverTest
 {
-	//
-	// Instance fields
-	//
-
-	/**
-	 * <p>The web driver to use.</p>
-	 */
-	private final WebDriver m_webDriver;
-
-	/**
-	 * <p>The URL to be tested.</p>
-	 */
-	private final String m_url;
-
-
 	//
 	// Constructors
 	//
@@ -52,16 +33,7 @@ extends ChromeDriverTest
 	 * The URL to test.
 	 */
 	public LeftColumnButtonStringCharactersTest( final String url ) {
-		super();
-
-		if( url == null ) {
-			throw( new NullPointerException("'url' is null!") );
-		} else if( url.length() == 0 ) {
-			throw( new IllegalArgumentException("'url' has zero length") );
-		}
-
-		m_webDriver = new ChromeDriver();
-		m_url = url;
+		super( url );
 	}
 
 
@@ -70,33 +42,27 @@ extends ChromeDriverTest
 	//
 
 	@Override
-	public void run() {
-		// Fetch the page
-		m_webDriver.get( m_url );
-
+	protected void runTest( final PageFixture page ) {
 		// Find the "large-2" <div> container.  It should have one or more
 		// anchor child elements, each having the "button" class
-		final WebElement large2WebElement = m_webDriver.findElement( By.className("large-2") );
+		final DomNode large2Node = page.getSnapshot().findElementByClassName( "large-2" );
 
 		// Each anchor should have a "button" class
-		final List<WebElement> buttonWebElementList = large2WebElement.findElements( By.className("button") );
+		final List<DomNode> buttonNodeList = large2Node.findElementsByClassName( "button" );
 
 		// Cycle through and test the string characters
-		for( WebElement buttonWebElement : buttonWebElementList ) {
-			final String webElementText = buttonWebElement.getText();
-			debug( "Button: '%s' with text '%s'", toString(buttonWebElement), webElementText );
+		for( DomNode buttonNode : buttonNodeList ) {
+			final String webElementText = buttonNode.getText();
+			debug( "Button: '%s' with text '%s'", buttonNode, webElementText );
 			char[] webElementChars = webElementText.toCharArray();
 			for( char ch : webElementChars ) {
 				if( Character.isISOControl(ch) == true ) {
 					error( "Invalid character(s) found in element %s",
-							toString(buttonWebElement) );
+							buttonNode );
 					break;
 				}
 			}
 		}
-
-		// All done.
-		m_webDriver.close();
 	}
 
 
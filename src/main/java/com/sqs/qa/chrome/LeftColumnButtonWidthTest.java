@@ -10,11 +10,7 @@ package com.sqs.qa.chrome;
 
 import java.util.List;
 
-import org.openqa.selenium.By;
 import org.openqa.selenium.Dimension;
-import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
 
 
 /**
@@ -23,24 +19,10 @@ import org.openqa.selenium.chrome.ChromeDriver;
  *
  * @author Michael Gaugy (mgaugy@yahoo.com)
  */
+@ChromeTest( page = "challenging_dom", tags = "buttons", dependsOn = "large-2" )
 public class LeftColumnButtonWidthTest
 extends ChromeDriverTest
 {
-	//
-	// Instance fields
-	//
-
-	/**
-	 * <p>The web driver to use.</p>
-	 */
-	private final WebDriver m_webDriver;
-
-	/**
-	 * <p>The URL to be tested.</p>
-	 */
-	private final String m_url;
-
-
 	//
 	// Constructors
 	//
@@ -53,16 +35,7 @@ extends ChromeDriverTest
 	 * The URL to test.
 	 */
 	public LeftColumnButtonWidthTest( final String url ) {
-		super();
-
-		if( url == null ) {
-			throw( new NullPointerException("'url' is null!") );
-		} else if( url.length() == 0 ) {
-			throw( new IllegalArgumentException("'url' has zero length") );
-		}
-
-		m_webDriver = new ChromeDriver();
-		m_url = url;
+		super( url );
 	}
 
 
@@ -71,37 +44,34 @@ extends ChromeDriverTest
 	//
 
 	@Override
-	public void run() {
-		// Fetch the page
-		m_webDriver.get( m_url );
-
+	protected void runTest( final PageFixture page ) {
 		// Find the "large-2" <div> container.  It should have one or more
 		// anchor child elements, each having the "button" class
-		final WebElement large2WebElement = m_webDriver.findElement( By.className("large-2") );
+		final DomNode large2Node = page.getSnapshot().findElementByClassName( "large-2" );
 
 		// Each anchor should have a "button" class
-		final List<WebElement> buttonWebElementList = large2WebElement.findElements( By.className("button") );
+		final List<DomNode> buttonNodeList = large2Node.findElementsByClassName( "button" );
 
 		int minimumWidth = 1000;
 		int maximumWidth = 0;
 		int narrowestCount = 0;
 		int widestCount = 0;
-		WebElement narrowestWebElement = null;
-		WebElement widestWebElement = null;
+		DomNode narrowestWebElement = null;
+		DomNode widestWebElement = null;
 
 		// Cycle through and match the sizes
-		for( WebElement buttonWebElement : buttonWebElementList ) {
-			final Dimension size = buttonWebElement.getSize();
+		for( DomNode buttonNode : buttonNodeList ) {
+			final Dimension size = buttonNode.getSize();
 			if( minimumWidth > size.width ) {
 				narrowestCount = 1;
-				narrowestWebElement = buttonWebElement;
+				narrowestWebElement = buttonNode;
 				minimumWidth = size.width;
 			} else if( minimumWidth == size.width ) {
 				narrowestCount++;
 			}
 			if( maximumWidth < size.width ) {
 				widestCount = 1;
-				widestWebElement = buttonWebElement;
+				widestWebElement = buttonNode;
 				maximumWidth = size.width;
 			} else if( maximumWidth == size.width ) {
 				widestCount++;
@@ -112,15 +82,12 @@ extends ChromeDriverTest
 		if( minimumWidth != maximumWidth ) {
 			if( narrowestCount >= widestCount ) {
 				error( "%d element(s) are wider than the others: %s",
-						widestCount, toString(widestWebElement) );
+						widestCount, widestWebElement );
 			} else {
 				error( "%d element(s) are narrower than the others: %s",
-						narrowestCount, toString(narrowestWebElement) );
+						narrowestCount, narrowestWebElement );
 			}
 		}
-
-		// All done.
-		m_webDriver.close();
 	}
 
 
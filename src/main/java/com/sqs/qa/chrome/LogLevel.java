@@ -0,0 +1,24 @@
+/*
+ * com/sqs/qa/chrome/LogLevel.java
+ *
+ * LogLevel object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+
+/**
+ * <p>Severity of a message issued through an {@link ErrorCallback}, in
+ * increasing order.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public enum LogLevel
+{
+	DEBUG,
+	INFO,
+	WARNING,
+	ERROR;
+}
@@ -0,0 +1,111 @@
+/*
+ * com/sqs/qa/chrome/LogMessage.java
+ *
+ * LogMessage object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+
+/**
+ * <p>An unformatted message.  Formatting is deferred until the message is
+ * written, so that it happens off the test threads.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class LogMessage
+{
+	//
+	// Constants
+	//
+
+	private static final Object[] NO_ARGS = new Object[0];
+
+
+	//
+	// Instance fields
+	//
+
+	/**
+	 * <p>The severity, or <code>null</code> for a raw line.</p>
+	 */
+	private final LogLevel m_level;
+
+	/**
+	 * <p>The issuing class name, or <code>null</code> for a raw line.</p>
+	 */
+	private final String m_source;
+
+	private final String m_format;
+
+	private final Object[] m_args;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link LogMessage}.</p>
+	 *
+	 * @param level
+	 * The severity.
+	 * @param source
+	 * The issuing class name.
+	 * @param format
+	 * The format string.
+	 * @param args
+	 * Arguments
+	 */
+	public LogMessage( final LogLevel level, final String source, final String format, final Object[] args ) {
+		super();
+		m_level = level;
+		m_source = source;
+		m_format = format;
+		m_args = args;
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	public LogLevel getLevel() {
+		return( m_level );
+	}
+
+	/**
+	 * <p>Format the message as a line of output.</p>
+	 *
+	 * @return
+	 * Returns the formatted line, without a line terminator.
+	 */
+	public String format() {
+		final String result;
+		if( m_level == null ) {
+			result = m_format;
+		} else {
+			result = m_source + ": " + m_level + ": " + String.format( m_format, m_args );
+		}
+		return( result );
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Create a message for a line that is written as is.</p>
+	 *
+	 * @param line
+	 * The line.
+	 * @return
+	 * Returns the message.
+	 */
+	public static LogMessage line( final String line ) {
+		return( new LogMessage(null, null, line, NO_ARGS) );
+	}
+}
@@ -0,0 +1,256 @@
+/*
+ * com/sqs/qa/chrome/PageFixture.java
+ *
+ * PageFixture object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+
+/**
+ * <p>A page loaded in a pooled web driver session, shared by the tests that
+ * check it.</p>
+ *
+ * <p>Loading a page is skipped when the session already shows the requested
+ * URL and no test has modified it since it was loaded.  Elements found
+ * through the fixture, and the {@link DomSnapshot} of the page, are cached
+ * until the page is loaded again, so tests checking the same containers do
+ * not each look them up.  A test that modifies the page must mark the
+ * fixture dirty, which causes the page to be reloaded (and the session
+ * reset) before it is used again.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class PageFixture
+{
+	//
+	// Instance fields
+	//
+
+	/**
+	 * <p>The web driver showing the page.</p>
+	 */
+	private final WebDriver m_webDriver;
+
+	/**
+	 * <p>Cache of single elements found on the current page.</p>
+	 */
+	private final Map<By, WebElement> m_elementCache;
+
+	/**
+	 * <p>Cache of element lists found on the current page.</p>
+	 */
+	private final Map<By, List<WebElement>> m_elementListCache;
+
+	/**
+	 * <p>Cached snapshot of the current page, or <code>null</code> if none
+	 * has been captured.</p>
+	 */
+	private DomSnapshot m_snapshot;
+
+	/**
+	 * <p>Cache of table models built from the snapshot.</p>
+	 */
+	private final Map<DomNode, TableModel> m_tableModelCache;
+
+	/**
+	 * <p>The URL currently loaded, or <code>null</code> if none.</p>
+	 */
+	private String m_url;
+
+	private boolean m_dirty;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link PageFixture} for the specified web
+	 * driver.</p>
+	 *
+	 * @param webDriver
+	 * The web driver.
+	 */
+	public PageFixture( final WebDriver webDriver ) {
+		super();
+
+		if( webDriver == null ) {
+			throw( new NullPointerException("'webDriver' is null!") );
+		}
+
+		m_webDriver = webDriver;
+		m_elementCache = new HashMap<By, WebElement>();
+		m_elementListCache = new HashMap<By, List<WebElement>>();
+		m_tableModelCache = new IdentityHashMap<DomNode, TableModel>();
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	/**
+	 * <p>Get the web driver showing the page.</p>
+	 *
+	 * @return
+	 * Returns the web driver.
+	 */
+	public WebDriver getWebDriver() {
+		return( m_webDriver );
+	}
+
+	/**
+	 * <p>Get the URL currently loaded.</p>
+	 *
+	 * @return
+	 * Returns the URL, or <code>null</code> if no page is loaded.
+	 */
+	public String getUrl() {
+		return( m_url );
+	}
+
+	/**
+	 * <p>Determine whether the page has been modified since it was
+	 * loaded.</p>
+	 *
+	 * @return
+	 * Returns <code>true</code> if the page is dirty.
+	 */
+	public boolean isDirty() {
+		return( m_dirty );
+	}
+
+	/**
+	 * <p>Mark the page as modified, so that it is reloaded before it is used
+	 * again.</p>
+	 */
+	public void markDirty() {
+		m_dirty = true;
+		clearCache();
+	}
+
+	/**
+	 * <p>Ensure the specified URL is loaded and unmodified, loading it only
+	 * if necessary.</p>
+	 *
+	 * @param url
+	 * The URL to load.
+	 * @return
+	 * Returns <code>true</code> if the page was (re)loaded, or
+	 * <code>false</code> if the already loaded page was reused.
+	 */
+	public boolean load( final String url ) {
+		if( url == null ) {
+			throw( new NullPointerException("'url' is null!") );
+		}
+
+		boolean result = false;
+		if( (url.equals(m_url) == false)
+				|| (m_dirty == true) ) {
+			clear();
+			m_webDriver.get( url );
+			m_url = url;
+			result = true;
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Forget the loaded page.</p>
+	 */
+	public void clear() {
+		m_url = null;
+		m_dirty = false;
+		clearCache();
+	}
+
+	/**
+	 * <p>Find the first element on the page matching the specified locator,
+	 * reusing a previous lookup if available.</p>
+	 *
+	 * @param by
+	 * The locator.
+	 * @return
+	 * Returns the element.
+	 */
+	public WebElement findElement( final By by ) {
+		WebElement result = m_elementCache.get( by );
+		if( result == null ) {
+			result = m_webDriver.findElement( by );
+			m_elementCache.put( by, result );
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Find all elements on the page matching the specified locator,
+	 * reusing a previous lookup if available.</p>
+	 *
+	 * @param by
+	 * The locator.
+	 * @return
+	 * Returns an unmodifiable list of elements.
+	 */
+	public List<WebElement> findElements( final By by ) {
+		List<WebElement> result = m_elementListCache.get( by );
+		if( result == null ) {
+			result = Collections.unmodifiableList( m_webDriver.findElements(by) );
+			m_elementListCache.put( by, result );
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Get a snapshot of the document body, capturing it on first use.</p>
+	 *
+	 * @return
+	 * Returns the snapshot.
+	 */
+	public DomSnapshot getSnapshot() {
+		if( m_snapshot == null ) {
+			m_snapshot = DomSnapshot.capture( m_webDriver );
+		}
+		return( m_snapshot );
+	}
+
+	/**
+	 * <p>Get the model of a table in the snapshot, building it on first
+	 * use.</p>
+	 *
+	 * @param tableNode
+	 * The table node, from {@link #getSnapshot()}.
+	 * @return
+	 * Returns the table model.
+	 */
+	public TableModel getTableModel( final DomNode tableNode ) {
+		TableModel result = m_tableModelCache.get( tableNode );
+		if( result == null ) {
+			result = TableModel.of( tableNode );
+			m_tableModelCache.put( tableNode, result );
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Discard all cached elements, snapshots and models.</p>
+	 */
+	private void clearCache() {
+		m_elementCache.clear();
+		m_elementListCache.clear();
+		m_snapshot = null;
+		m_tableModelCache.clear();
+	}
+}
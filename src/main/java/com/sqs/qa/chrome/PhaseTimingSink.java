@@ -0,0 +1,160 @@
+/*
+ * com/sqs/qa/chrome/PhaseTimingSink.java
+ *
+ * PhaseTimingSink object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * <p>Collects the {@link PhaseTimings} of finished tests and prints a
+ * per-test and per-suite breakdown when the suite finishes.</p>
+ *
+ * <p>A test executed once is shown with its phase times; a test executed
+ * several times is shown with the median and 95th percentile of each
+ * phase.  Only the phase times are retained, four values per
+ * execution.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class PhaseTimingSink
+implements TestEventSink
+{
+	//
+	// Instance fields
+	//
+
+	private final AsyncLogWriter m_logWriter;
+
+	/**
+	 * <p>The phase times in milliseconds of each execution, by test name, in
+	 * the order the tests were first reported.</p>
+	 */
+	private final Map<String, List<double[]>> m_samples;
+
+
+	//
+	// Constructors
+	//
+
+	public PhaseTimingSink( final AsyncLogWriter logWriter ) {
+		super();
+
+		if( logWriter == null ) {
+			throw( new NullPointerException("'logWriter' is null!") );
+		}
+
+		m_logWriter = logWriter;
+		m_samples = new LinkedHashMap<String, List<double[]>>();
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	@Override
+	public void accept( final TestEvent event ) {
+		if( (event.getType() == TestEvent.Type.TEST_FINISHED)
+				&& (event.getPhaseTimings() != null) ) {
+			final TestPhase[] phases = TestPhase.values();
+			final double[] sample = new double[phases.length];
+			for( TestPhase phase : phases ) {
+				sample[phase.ordinal()] = event.getPhaseTimings().getMillis( phase );
+			}
+			List<double[]> sampleList = m_samples.get( event.getName() );
+			if( sampleList == null ) {
+				sampleList = new ArrayList<double[]>();
+				m_samples.put( event.getName(), sampleList );
+			}
+			sampleList.add( sample );
+		} else if( event.getType() == TestEvent.Type.SUITE_FINISHED ) {
+			printBreakdown();
+		}
+	}
+
+	@Override
+	public void close() {
+		// The log writer is owned by the caller
+	}
+
+	private void printBreakdown() {
+		if( m_samples.isEmpty() == true ) {
+			return;
+		}
+
+		final TestPhase[] phases = TestPhase.values();
+		final StringBuilder sb = new StringBuilder( String.format("%-40s %5s", "Phase timings (ms)", "runs") );
+		for( TestPhase phase : phases ) {
+			sb.append( String.format(" %17s", phase.getLabel()) );
+		}
+		m_logWriter.publish( LogMessage.line("\n" + sb) );
+
+		final double[] suiteTotals = new double[phases.length];
+		for( Map.Entry<String, List<double[]>> entry : m_samples.entrySet() ) {
+			final String testName = entry.getKey();
+			final List<double[]> sampleList = entry.getValue();
+			sb.setLength( 0 );
+			sb.append( String.format("%-40s %5d", testName.substring(testName.lastIndexOf('.') + 1),
+					sampleList.size()) );
+			for( TestPhase phase : phases ) {
+				final double[] values = new double[sampleList.size()];
+				for( int i = 0; i < values.length; i++ ) {
+					values[i] = sampleList.get( i )[phase.ordinal()];
+					suiteTotals[phase.ordinal()] += values[i];
+				}
+				if( values.length == 1 ) {
+					sb.append( String.format(" %17.1f", values[0]) );
+				} else {
+					Arrays.sort( values );
+					sb.append( String.format(" %17s", String.format("%.1f/%.1f",
+							percentile(values, 50), percentile(values, 95))) );
+				}
+			}
+			m_logWriter.publish( LogMessage.line(sb.toString()) );
+		}
+
+		double suiteTotal = 0;
+		for( double phaseTotal : suiteTotals ) {
+			suiteTotal += phaseTotal;
+		}
+		sb.setLength( 0 );
+		sb.append( String.format("%-40s %5s", "Suite total", "") );
+		for( TestPhase phase : phases ) {
+			final double phaseTotal = suiteTotals[phase.ordinal()];
+			sb.append( String.format(" %17s", String.format("%.0f (%.0f%%)",
+					phaseTotal, (suiteTotal > 0) ? (100 * phaseTotal / suiteTotal) : 0.0)) );
+		}
+		m_logWriter.publish( LogMessage.line(sb.toString()) );
+		m_logWriter.publish( LogMessage.line("(p50/p95 shown for tests executed more than once)") );
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Get a percentile of sorted values, by the nearest-rank method.</p>
+	 *
+	 * @param sortedValues
+	 * The values, in ascending order.
+	 * @param percent
+	 * The percentile, from 1 to 100.
+	 * @return
+	 * Returns the value.
+	 */
+	static double percentile( final double[] sortedValues, final int percent ) {
+		final int rank = (int) Math.ceil( percent / 100.0 * sortedValues.length );
+		return( sortedValues[Math.max(rank, 1) - 1] );
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * com/sqs/qa/chrome/PhaseTimings.java
+ *
+ * PhaseTimings object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * <p>Monotonic timings of the {@link TestPhase}s of one test execution.</p>
+ *
+ * <p>Starting a phase ends the previous one, so a phase that throws is
+ * still charged for the time it took.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class PhaseTimings
+{
+	//
+	// Instance fields
+	//
+
+	/**
+	 * <p>Elapsed nanoseconds, indexed by phase ordinal.</p>
+	 */
+	private final long[] m_nanos;
+
+	/**
+	 * <p>The phase being timed, or <code>null</code>.</p>
+	 */
+	private TestPhase m_currentPhase;
+
+	private long m_phaseStartNanos;
+
+
+	//
+	// Constructors
+	//
+
+	public PhaseTimings() {
+		super();
+		m_nanos = new long[TestPhase.values().length];
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	/**
+	 * <p>End the current phase, if any, and start timing the specified
+	 * phase.</p>
+	 *
+	 * @param phase
+	 * The phase.
+	 */
+	public void start( final TestPhase phase ) {
+		final long nowNanos = System.nanoTime();
+		if( m_currentPhase != null ) {
+			m_nanos[m_currentPhase.ordinal()] += nowNanos - m_phaseStartNanos;
+		}
+		m_currentPhase = phase;
+		m_phaseStartNanos = nowNanos;
+	}
+
+	/**
+	 * <p>Add time measured elsewhere to a phase.</p>
+	 *
+	 * @param phase
+	 * The phase.
+	 * @param nanos
+	 * The time to add.
+	 */
+	public void add( final TestPhase phase, final long nanos ) {
+		m_nanos[phase.ordinal()] += nanos;
+	}
+
+	/**
+	 * <p>End the current phase.</p>
+	 */
+	public void stop() {
+		start( null );
+	}
+
+	public long getNanos( final TestPhase phase ) {
+		return( m_nanos[phase.ordinal()] );
+	}
+
+	public double getMillis( final TestPhase phase ) {
+		return( m_nanos[phase.ordinal()] / (double) TimeUnit.MILLISECONDS.toNanos(1) );
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		for( TestPhase phase : TestPhase.values() ) {
+			if( sb.length() > 0 ) {
+				sb.append( ", " );
+			}
+			sb.append( String.format("%s %.1f ms", phase.getLabel(), getMillis(phase)) );
+		}
+		return( sb.toString() );
+	}
+}
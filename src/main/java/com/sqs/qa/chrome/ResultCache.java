@@ -0,0 +1,449 @@
+/*
+ * com/sqs/qa/chrome/ResultCache.java
+ *
+ * ResultCache object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+
+/**
+ * <p>The tests that passed against the current content of the page, kept
+ * in a small properties file, so that unchanged tests are not executed
+ * again on unchanged content.</p>
+ *
+ * <p>A test's result is keyed by a hash of the compiled tests and harness and a hash
+ * of the page containers it declares it depends on (see
+ * {@link ChromeTest#dependsOn()}), taken from the page's
+ * {@link DomSnapshot}.  When both match the last pass, the pass is reused.
+ * Only passes are recorded; a test whose checks fail is executed every
+ * time.  Setting the <code>sqs.qa.forceRun</code> system property executes
+ * every test while still recording the passes.</p>
+ *
+ * <p>Several processes may share the file: when the cache is closed, the
+ * passes recorded by this process are merged into the file's current
+ * content under a file lock.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class ResultCache
+{
+	//
+	// Constants
+	//
+
+	/**
+	 * <p>System property specifying the cache file.</p>
+	 */
+	private static final String FILE_PROPERTY = "sqs.qa.resultCache";
+
+	/**
+	 * <p>System property that, when <code>true</code>, executes every test
+	 * regardless of the cache.</p>
+	 */
+	private static final String FORCE_PROPERTY = "sqs.qa.forceRun";
+
+	private static final String DEFAULT_FILENAME = "results.properties";
+
+
+	//
+	// Class fields
+	//
+
+	/**
+	 * <p>The hashes of the class path entries hashed so far; the code does
+	 * not change while the harness is running.</p>
+	 */
+	private static final Map<File, String> ms_codeHashes = new HashMap<File, String>();
+
+
+	//
+	// Instance fields
+	//
+
+	/**
+	 * <p>The cache file.</p>
+	 */
+	private final File m_file;
+
+	/**
+	 * <p>The key of the last pass by test class name, as loaded.</p>
+	 */
+	private final Properties m_passes;
+
+	/**
+	 * <p>The passes recorded by this process, to be merged into the
+	 * file.</p>
+	 */
+	private final Map<String, String> m_recordedPasses;
+
+	/**
+	 * <p>Whether to ignore the loaded passes.</p>
+	 */
+	private final boolean m_force;
+
+	private int m_reuseCount;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link ResultCache}, loading the specified file if
+	 * present.</p>
+	 *
+	 * @param file
+	 * The cache file.
+	 * @param force
+	 * Specifies whether to execute every test regardless of the cache.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the file cannot be read.
+	 */
+	public ResultCache( final File file, final boolean force )
+	throws IOException {
+		this( file, force, true );
+	}
+
+	private ResultCache( final File file, final boolean force, final boolean load )
+	throws IOException {
+		super();
+
+		if( file == null ) {
+			throw( new NullPointerException("'file' is null!") );
+		}
+
+		m_file = file;
+		m_passes = new Properties();
+		m_recordedPasses = new TreeMap<String, String>();
+		m_force = force;
+		if( (load == true)
+				&& (file.exists() == true) ) {
+			load( file, m_passes );
+		}
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	/**
+	 * <p>Determine whether a test passed with the specified key, counting it
+	 * as reused if so.</p>
+	 *
+	 * @param testName
+	 * The test class name.
+	 * @param key
+	 * The key, from {@link #createKey(Class, DomSnapshot, String[])}.
+	 * @return
+	 * Returns <code>true</code> if the test's last pass may be reused.
+	 */
+	public synchronized boolean reusePass( final String testName, final String key ) {
+		final boolean result = (m_force == false)
+				&& (key.equals(m_passes.getProperty(testName)) == true);
+		if( result == true ) {
+			m_reuseCount++;
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Record that a test passed with the specified key.</p>
+	 *
+	 * @param testName
+	 * The test class name.
+	 * @param key
+	 * The key, from {@link #createKey(Class, DomSnapshot, String[])}.
+	 */
+	public synchronized void recordPass( final String testName, final String key ) {
+		m_passes.setProperty( testName, key );
+		m_recordedPasses.put( testName, key );
+	}
+
+	/**
+	 * <p>Get the number of passes reused so far.</p>
+	 *
+	 * @return
+	 * Returns the number of tests that were not executed.
+	 */
+	public synchronized int getReuseCount() {
+		return( m_reuseCount );
+	}
+
+	/**
+	 * <p>Merge the recorded passes into the file, if any were recorded.</p>
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the file cannot be written.
+	 */
+	public synchronized void close()
+	throws IOException {
+		if( m_recordedPasses.isEmpty() == true ) {
+			return;
+		}
+
+		final File directory = m_file.getAbsoluteFile().getParentFile();
+		if( (directory.isDirectory() == false)
+				&& (directory.mkdirs() == false) ) {
+			throw( new IOException("Cannot create directory: " + directory) );
+		}
+		final File lockFile = new File( directory, m_file.getName() + ".lock" );
+		final FileChannel lockChannel = FileChannel.open( lockFile.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE );
+		try {
+			lockChannel.lock();
+
+			// Another process may have recorded passes since the file was loaded
+			final Properties passes = new Properties();
+			if( m_file.exists() == true ) {
+				load( m_file, passes );
+			}
+			passes.putAll( m_recordedPasses );
+
+			final File temporaryFile = new File( directory, m_file.getName() + ".tmp" );
+			final OutputStream outputStream = new FileOutputStream( temporaryFile );
+			try {
+				passes.store( outputStream, "Last passes: class=code hash:content hash" );
+			} finally {
+				outputStream.close();
+			}
+			Files.move( temporaryFile.toPath(), m_file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+		} finally {
+			// Releases the lock
+			lockChannel.close();
+		}
+		m_recordedPasses.clear();
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Create the key of a test's result from its compiled classes and the
+	 * content of the page containers it depends on.</p>
+	 *
+	 * <p>The code hashed is every class in the class path entries (class
+	 * directories or jars) from which the test class and its superclasses
+	 * were loaded, so a change to the checks or to any harness class they
+	 * use invalidates the result.  The content hashed is every element (tag, attributes, text,
+	 * location, size and captured styles) of each container, in document
+	 * order.</p>
+	 *
+	 * @param testClass
+	 * The test class.
+	 * @param snapshot
+	 * The snapshot of the page.
+	 * @param containerClassNames
+	 * The class names of the containers.
+	 * @return
+	 * Returns the key, or <code>null</code> if the test's code cannot be
+	 * read.
+	 */
+	public static String createKey( final Class<?> testClass, final DomSnapshot snapshot,
+			final String[] containerClassNames ) {
+		final StringBuilder codeHash = new StringBuilder();
+		final ByteArrayOutputStream contentBytes = new ByteArrayOutputStream();
+		try {
+			final Set<File> codeLocations = new TreeSet<File>();
+			for( Class<?> current = testClass; current != Object.class; current = current.getSuperclass() ) {
+				final CodeSource codeSource = current.getProtectionDomain().getCodeSource();
+				if( (codeSource == null)
+						|| (codeSource.getLocation() == null) ) {
+					return( null );
+				}
+				codeLocations.add( new File(codeSource.getLocation().toURI()) );
+			}
+			for( File codeLocation : codeLocations ) {
+				codeHash.append( getCodeHash(codeLocation) );
+			}
+
+			final DataOutputStream dataOutputStream = new DataOutputStream( contentBytes );
+			for( String containerClassName : containerClassNames ) {
+				writeString( dataOutputStream, containerClassName );
+				for( DomNode containerNode : snapshot.findElementsByClassName(containerClassName) ) {
+					writeNode( dataOutputStream, containerNode );
+				}
+			}
+			dataOutputStream.flush();
+		} catch( IOException ioException ) {
+			return( null );
+		} catch( URISyntaxException uriSyntaxException ) {
+			return( null );
+		} catch( IllegalArgumentException illegalArgumentException ) {
+			// Not loaded from a file
+			return( null );
+		}
+		return( BaselineStore.hash(codeHash.toString().getBytes(StandardCharsets.UTF_8)) + ":"
+				+ BaselineStore.hash(contentBytes.toByteArray()) );
+	}
+
+	/**
+	 * <p>Get the hash of a class path entry, computing it on first use.  A
+	 * jar is hashed as a whole; a directory by the paths and content of all
+	 * the class files under it.</p>
+	 *
+	 * @param codeLocation
+	 * The class directory or jar.
+	 * @return
+	 * Returns the hash.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the entry cannot be read.
+	 */
+	private static String getCodeHash( final File codeLocation )
+	throws IOException {
+		synchronized( ms_codeHashes ) {
+			String result = ms_codeHashes.get( codeLocation );
+			if( result == null ) {
+				final ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+				if( codeLocation.isDirectory() == true ) {
+					final DataOutputStream dataOutputStream = new DataOutputStream( codeBytes );
+					final Map<String, File> classFiles = new TreeMap<String, File>();
+					collectClassFiles( codeLocation, "", classFiles );
+					for( Map.Entry<String, File> entry : classFiles.entrySet() ) {
+						writeString( dataOutputStream, entry.getKey() );
+						final byte[] bytes = Files.readAllBytes( entry.getValue().toPath() );
+						dataOutputStream.writeInt( bytes.length );
+						dataOutputStream.write( bytes );
+					}
+					dataOutputStream.flush();
+				} else {
+					codeBytes.write( Files.readAllBytes(codeLocation.toPath()) );
+				}
+				result = BaselineStore.hash( codeBytes.toByteArray() );
+				ms_codeHashes.put( codeLocation, result );
+			}
+			return( result );
+		}
+	}
+
+	private static void collectClassFiles( final File directory, final String prefix,
+			final Map<String, File> classFiles )
+	throws IOException {
+		final File[] files = directory.listFiles();
+		if( files == null ) {
+			throw( new IOException("Cannot list directory: " + directory) );
+		}
+		for( File file : files ) {
+			final String path = prefix + file.getName();
+			if( file.isDirectory() == true ) {
+				collectClassFiles( file, path + "/", classFiles );
+			} else if( path.endsWith(".class") == true ) {
+				classFiles.put( path, file );
+			}
+		}
+	}
+
+	/**
+	 * <p>Load the cache from the file given by the
+	 * <code>sqs.qa.resultCache</code> system property, or
+	 * <code>results.properties</code> in the artifact directory.  If the
+	 * file cannot be read, every test is executed.</p>
+	 *
+	 * @return
+	 * Returns the cache.
+	 */
+	public static ResultCache loadDefault() {
+		final String path = System.getProperty( FILE_PROPERTY );
+		final File file = (path != null)
+				? new File( path )
+				: new File( ChromeDriverTest.getArtifactDirectory(), DEFAULT_FILENAME );
+		final boolean force = Boolean.getBoolean( FORCE_PROPERTY );
+		ResultCache result;
+		try {
+			result = new ResultCache( file, force );
+		} catch( IOException ioException ) {
+			ioException.printStackTrace();
+			try {
+				// The passes of this run are still merged into the file
+				result = new ResultCache( file, force, false );
+			} catch( IOException unexpectedIOException ) {
+				// Nothing is read
+				throw( new IllegalStateException(unexpectedIOException) );
+			}
+		}
+		return( result );
+	}
+
+	private static void load( final File file, final Properties properties )
+	throws IOException {
+		final InputStream inputStream = new FileInputStream( file );
+		try {
+			properties.load( inputStream );
+		} finally {
+			inputStream.close();
+		}
+	}
+
+	/**
+	 * <p>Write an element and its descendants, with a canonical order of
+	 * attributes and styles.</p>
+	 */
+	private static void writeNode( final DataOutputStream dataOutputStream, final DomNode node )
+	throws IOException {
+		writeString( dataOutputStream, node.getTagName() );
+		writeMap( dataOutputStream, node.getAttributes() );
+		writeString( dataOutputStream, node.getText() );
+		writeString( dataOutputStream, String.valueOf(node.getLocation()) );
+		writeString( dataOutputStream, String.valueOf(node.getSize()) );
+		writeMap( dataOutputStream, node.getCssValues() );
+		dataOutputStream.writeInt( node.getChildren().size() );
+		for( DomNode child : node.getChildren() ) {
+			writeNode( dataOutputStream, child );
+		}
+	}
+
+	private static void writeMap( final DataOutputStream dataOutputStream, final Map<String, String> map )
+	throws IOException {
+		dataOutputStream.writeInt( map.size() );
+		for( Map.Entry<String, String> entry : new TreeMap<String, String>(map).entrySet() ) {
+			writeString( dataOutputStream, entry.getKey() );
+			writeString( dataOutputStream, entry.getValue() );
+		}
+	}
+
+	/**
+	 * <p>Write a string prefixed by its length, so that adjacent strings
+	 * cannot run into each other.  <code>null</code> is written as length
+	 * -1.</p>
+	 */
+	private static void writeString( final DataOutputStream dataOutputStream, final String text )
+	throws IOException {
+		if( text == null ) {
+			dataOutputStream.writeInt( -1 );
+			return;
+		}
+		final byte[] bytes = text.getBytes( StandardCharsets.UTF_8 );
+		dataOutputStream.writeInt( bytes.length );
+		dataOutputStream.write( bytes );
+	}
+}
@@ -0,0 +1,377 @@
+/*
+ * com/sqs/qa/chrome/ShardCoordinator.java
+ *
+ * ShardCoordinator object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * <p>Merges the results of a suite sharded among several processes into one
+ * report.</p>
+ *
+ * <p>{@link #spawning(List, DurationHistory)} starts the worker processes
+ * itself, each executing the tests of one shard (see
+ * <code>sqs.qa.tests</code>) and streaming its {@link TestEvent}s back as
+ * JSON Lines on its standard output.  The workers' console output is passed
+ * through on standard error.  {@link #merging(List, DurationHistory)}
+ * instead reads the event streams of shards executed separately, such as on
+ * other hosts.  Either way, the events of each test
+ * are passed to the event sinks as soon as the test is complete, and the
+ * suite totals are those of a single-process run.  The test durations are
+ * recorded in the {@link DurationHistory}.</p>
+ *
+ * <p>A test assigned to a worker process that ends without reporting it,
+ * such as because the worker crashed, is reported as terminated by an
+ * error, and a worker exiting with a non-zero code counts as an error of
+ * the suite, so that a crash cannot pass for success.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class ShardCoordinator
+implements Runnable
+{
+	//
+	// Constants
+	//
+
+	/**
+	 * <p>System properties that concern the coordinator rather than the
+	 * workers.</p>
+	 */
+	private static final Set<String> COORDINATOR_PROPERTIES = new HashSet<String>( Arrays.asList(
+			ChromeDriverTestRunner.PROCESS_COUNT_PROPERTY,
+			ChromeDriverTestRunner.SHARD_PROPERTY,
+			ChromeDriverTestRunner.TESTS_PROPERTY,
+			ChromeDriverTestRunner.JSONL_FILE_PROPERTY,
+			ChromeDriverTestRunner.JUNIT_XML_FILE_PROPERTY) );
+
+	/**
+	 * <p>Marks the end of one event stream in the queue of tests.</p>
+	 */
+	private static final List<TestEvent> END_OF_STREAM = Collections.<TestEvent>emptyList();
+
+
+	//
+	// Instance fields
+	//
+
+	/**
+	 * <p>The tests of each worker process to start, if not merging
+	 * files.</p>
+	 */
+	private final List<List<TestDescriptor>> m_shardList;
+
+	/**
+	 * <p>The event streams to merge, if not starting worker processes.</p>
+	 */
+	private final List<File> m_fileList;
+
+	private final DurationHistory m_durationHistory;
+
+	/**
+	 * <p>The longest suite duration reported by an event stream.</p>
+	 */
+	private long m_streamDurationMillis;
+
+
+	//
+	// Constructors
+	//
+
+	private ShardCoordinator( final List<List<TestDescriptor>> shardList, final List<File> fileList,
+			final DurationHistory durationHistory ) {
+		super();
+		m_shardList = shardList;
+		m_fileList = fileList;
+		m_durationHistory = durationHistory;
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	@Override
+	public void run() {
+		final long suiteStartNanos = System.nanoTime();
+		final AsyncLogWriter logWriter = new AsyncLogWriter( System.out, AsyncLogWriter.DEFAULT_CAPACITY );
+		final List<TestEventSink> sinkList = ChromeDriverTestRunner.createSinks( logWriter, m_durationHistory );
+		// Named like a single-process suite, so the reports are comparable
+		final String suiteName = ChromeDriverTestRunner.class.getName();
+		ChromeDriverTestRunner.dispatch( sinkList, TestEvent.suiteStarted(suiteName) );
+
+		final BlockingQueue<List<TestEvent>> testQueue = new LinkedBlockingQueue<List<TestEvent>>();
+		final List<Process> processList = new ArrayList<Process>();
+		int streamCount = 0;
+		try {
+			if( m_fileList != null ) {
+				for( File file : m_fileList ) {
+					startReader( file.getPath(), new FileInputStream(file), null, testQueue );
+					streamCount++;
+				}
+			} else {
+				for( int i = 0; i < m_shardList.size(); i++ ) {
+					if( m_shardList.get(i).isEmpty() == true ) {
+						// More processes than tests
+						continue;
+					}
+					final Process process = startWorker( m_shardList.get(i) );
+					processList.add( process );
+					startReader( "Worker " + i, process.getInputStream(), m_shardList.get(i), testQueue );
+					streamCount++;
+				}
+			}
+		} catch( IOException ioException ) {
+			ioException.printStackTrace();
+		}
+
+		int testCount = 0;
+		int errorCount = 0;
+		try {
+			while( streamCount > 0 ) {
+				final List<TestEvent> eventList = testQueue.take();
+				if( eventList == END_OF_STREAM ) {
+					streamCount--;
+					continue;
+				}
+				for( TestEvent event : eventList ) {
+					ChromeDriverTestRunner.dispatch( sinkList, event );
+				}
+				testCount++;
+				errorCount += eventList.get( eventList.size() - 1 ).getErrorCount();
+			}
+			for( int i = 0; i < processList.size(); i++ ) {
+				final int exitCode = processList.get( i ).waitFor();
+				if( exitCode != 0 ) {
+					logWriter.publish( LogMessage.line(String.format("Worker %d exited with code %d", i, exitCode)) );
+					errorCount++;
+				}
+			}
+		} catch( InterruptedException interruptedException ) {
+			for( Process process : processList ) {
+				process.destroy();
+			}
+			Thread.currentThread().interrupt();
+		}
+
+		// Merged streams were executed elsewhere, so their own durations count
+		final long suiteDurationMillis = (m_fileList != null)
+				? getStreamDurationMillis()
+				: TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - suiteStartNanos );
+		ChromeDriverTestRunner.dispatch( sinkList,
+				TestEvent.suiteFinished(suiteName, suiteDurationMillis, testCount, errorCount) );
+		for( TestEventSink sink : sinkList ) {
+			try {
+				sink.close();
+			} catch( IOException ioException ) {
+				ioException.printStackTrace();
+			}
+		}
+
+		try {
+			logWriter.close();
+		} catch( InterruptedException interruptedException ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * <p>Start a worker process executing one shard.  The worker inherits the
+	 * harness's system properties, except those concerning the
+	 * coordinator.</p>
+	 *
+	 * @param testList
+	 * The tests of the shard.
+	 * @return
+	 * Returns the process.
+	 *
+	 * @throws IOException
+	 * This exception is thrown if the process cannot be started.
+	 */
+	private Process startWorker( final List<TestDescriptor> testList )
+	throws IOException {
+		final List<String> command = new ArrayList<String>();
+		command.add( new File(new File(System.getProperty("java.home"), "bin"), "java").getPath() );
+		command.add( "-cp" );
+		command.add( System.getProperty("java.class.path") );
+		for( String name : System.getProperties().stringPropertyNames() ) {
+			if( ((name.startsWith("sqs.qa.") == true) || (name.startsWith("webdriver.") == true))
+					&& (COORDINATOR_PROPERTIES.contains(name) == false) ) {
+				command.add( "-D" + name + "=" + System.getProperty(name) );
+			}
+		}
+		final StringBuilder sb = new StringBuilder();
+		for( TestDescriptor descriptor : testList ) {
+			if( sb.length() > 0 ) {
+				sb.append( ',' );
+			}
+			sb.append( descriptor.getName() );
+		}
+		command.add( "-D" + ChromeDriverTestRunner.TESTS_PROPERTY + "=" + sb );
+		command.add( "-D" + ChromeDriverTestRunner.JSONL_FILE_PROPERTY + "="
+				+ ChromeDriverTestRunner.STANDARD_OUTPUT_PATH );
+		command.add( ChromeDriverTestRunner.class.getName() );
+
+		final ProcessBuilder processBuilder = new ProcessBuilder( command );
+		processBuilder.redirectError( ProcessBuilder.Redirect.INHERIT );
+		return( processBuilder.start() );
+	}
+
+	/**
+	 * <p>Start a thread that reads an event stream and queues the events of
+	 * each complete test, followed by {@link #END_OF_STREAM}.  If the tests
+	 * assigned to the stream are known, those it ends without reporting are
+	 * queued as errors before its end.</p>
+	 *
+	 * @param name
+	 * The name of the stream, for error messages.
+	 * @param inputStream
+	 * The stream, which is closed at its end.
+	 * @param assignedList
+	 * The tests the stream is to report, each as many times as the
+	 * <code>sqs.qa.repeat</code> system property gives, or <code>null</code>
+	 * if unknown.
+	 * @param testQueue
+	 * The queue.
+	 */
+	private void startReader( final String name, final InputStream inputStream,
+			final List<TestDescriptor> assignedList, final BlockingQueue<List<TestEvent>> testQueue ) {
+		// The number of times each assigned test remains to be reported
+		final Map<String, Integer> pendingCounts = new LinkedHashMap<String, Integer>();
+		if( assignedList != null ) {
+			final int repeatCount = Integer.getInteger( ChromeDriverTestRunner.REPEAT_COUNT_PROPERTY, 1 ).intValue();
+			for( TestDescriptor descriptor : assignedList ) {
+				pendingCounts.put( descriptor.getName(), Integer.valueOf(repeatCount) );
+			}
+		}
+
+		final Thread thread = new Thread( new Runnable() {
+			@Override
+			public void run() {
+				final JsonlEventReader reader = new JsonlEventReader(
+						new InputStreamReader(inputStream, StandardCharsets.UTF_8) );
+				try {
+					List<TestEvent> eventList;
+					while( (eventList = reader.readTest()) != null ) {
+						final String testName = eventList.get( 0 ).getName();
+						final Integer pendingCount = pendingCounts.get( testName );
+						if( pendingCount != null ) {
+							pendingCounts.put( testName, Integer.valueOf(pendingCount.intValue() - 1) );
+						}
+						testQueue.add( eventList );
+					}
+					streamFinished( reader.getSuiteDurationMillis() );
+				} catch( IOException ioException ) {
+					System.err.println( name + ": " + ioException.getMessage() );
+				} finally {
+					try {
+						reader.close();
+					} catch( IOException ioException ) {
+						// Ignore
+					}
+					queueUnreported( name, pendingCounts, testQueue );
+					testQueue.add( END_OF_STREAM );
+				}
+			}
+		}, "ShardCoordinator-" + name );
+		thread.setDaemon( true );
+		thread.start();
+	}
+
+	/**
+	 * <p>Queue each assigned test that a stream ended without reporting as a
+	 * test terminated by an error.</p>
+	 *
+	 * @param name
+	 * The name of the stream.
+	 * @param pendingCounts
+	 * The number of times each assigned test remains to be reported.
+	 * @param testQueue
+	 * The queue.
+	 */
+	private void queueUnreported( final String name, final Map<String, Integer> pendingCounts,
+			final BlockingQueue<List<TestEvent>> testQueue ) {
+		for( Map.Entry<String, Integer> entry : pendingCounts.entrySet() ) {
+			final String testName = entry.getKey();
+			for( int i = 0; i < entry.getValue().intValue(); i++ ) {
+				final List<TestEvent> eventList = new ArrayList<TestEvent>();
+				eventList.add( TestEvent.testStarted(testName) );
+				eventList.add( TestEvent.testError(testName, name + " ended without reporting the test", null) );
+				eventList.add( TestEvent.testFinished(testName, 0, 1, null) );
+				testQueue.add( eventList );
+			}
+		}
+	}
+
+	private synchronized void streamFinished( final long suiteDurationMillis ) {
+		m_streamDurationMillis = Math.max( m_streamDurationMillis, suiteDurationMillis );
+	}
+
+	private synchronized long getStreamDurationMillis() {
+		return( m_streamDurationMillis );
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Create a coordinator that executes shards in worker processes it
+	 * starts.</p>
+	 *
+	 * @param shardList
+	 * The tests of each worker process.
+	 * @param durationHistory
+	 * The duration history in which to record the tests.
+	 * @return
+	 * Returns the coordinator.
+	 */
+	public static ShardCoordinator spawning( final List<List<TestDescriptor>> shardList,
+			final DurationHistory durationHistory ) {
+		if( shardList == null ) {
+			throw( new NullPointerException("'shardList' is null!") );
+		}
+		return( new ShardCoordinator(new ArrayList<List<TestDescriptor>>(shardList), null, durationHistory) );
+	}
+
+	/**
+	 * <p>Create a coordinator that merges the event streams of shards
+	 * executed separately.</p>
+	 *
+	 * @param fileList
+	 * The JSON Lines event files written by the shards.
+	 * @param durationHistory
+	 * The duration history in which to record the tests.
+	 * @return
+	 * Returns the coordinator.
+	 */
+	public static ShardCoordinator merging( final List<File> fileList, final DurationHistory durationHistory ) {
+		if( fileList == null ) {
+			throw( new NullPointerException("'fileList' is null!") );
+		}
+		return( new ShardCoordinator(null, new ArrayList<File>(fileList), durationHistory) );
+	}
+}
@@ -10,11 +10,6 @@ package com.sqs.qa.chrome;
 
 import java.util.List;
 
-import org.openqa.selenium.By;
-import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
-
 
 /**
  * <p>Test to validate that each of the rows in the table has links in the
@@ -22,24 +17,10 @@ import org.openqa.selenium.chrome.ChromeDriver;
  *
  * @author Michael Gaugy (mgaugy@yahoo.com)
  */
+@ChromeTest( page = "challenging_dom", tags = "table", dependsOn = "large-10" )
 public class TableActionLinksTest
 extends ChromeDriverTest
 {
-	//
-	// Instance fields
-	//
-
-	/**
-	 * <p>The web driver to use.</p>
-	 */
-	private final WebDriver m_webDriver;
-
-	/**
-	 * <p>The URL to be tested.</p>
-	 */
-	private final String m_url;
-
-
 	//
 	// Constructors
 	//
@@ -52,16 +33,7 @@ extends ChromeDriverTest
 	 * The URL to test.
 	 */
 	public TableActionLinksTest( final String url ) {
-		super();
-
-		if( url == null ) {
-			throw( new NullPointerException("'url' is null!") );
-		} else if( url.length() == 0 ) {
-			throw( new IllegalArgumentException("'url' has zero length") );
-		}
-
-		m_webDriver = new ChromeDriver();
-		m_url = url;
+		super( url );
 	}
 
 
@@ -70,49 +42,29 @@ extends ChromeDriverTest
 	//
 
 	@Override
-	public void run() {
-		// Fetch the page
-		m_webDriver.get( m_url );
-
+	protected void runTest( final PageFixture page ) {
 		// Find the "large-10" <div> containers.
-		final List<WebElement> large10WebElementList = m_webDriver.findElements( By.className("large-10") );
+		final List<DomNode> large10NodeList = page.getSnapshot().findElementsByClassName( "large-10" );
 
-		for( WebElement large10WebElement : large10WebElementList ) {
-			final List<WebElement> tableWebElementList = large10WebElement.findElements( By.tagName("table") );
-			if( tableWebElementList.isEmpty() == false ) {
+		for( DomNode large10Node : large10NodeList ) {
+			final List<DomNode> tableNodeList = large10Node.findElementsByTagName( "table" );
+			if( tableNodeList.isEmpty() == false ) {
 				// XXX: Assumption: Check only the first table
-				final WebElement tableWebElement = tableWebElementList.get( 0 );
+				final TableModel tableModel = page.getTableModel( tableNodeList.get(0) );
 
 				// Find which column index has the "Action" column header
-				int actionColumnIndex = -1;
-				// XXX: Assumption: Only one header row
-				final List<WebElement> thWebElementList = tableWebElement.findElements( By.tagName("th") );
-				for( int thIndex = 0; thIndex < thWebElementList.size(); thIndex++ ) { 
-					final WebElement thWebElement = thWebElementList.get( thIndex );
-					final String thText = thWebElement.getText();
-					if( thText.equals("Action") == true ) {
-						// We found a match
-						// XXX: Assumption: Only take the first column named "Action"
-						actionColumnIndex = thIndex;
-						break;
-					}
-				}
+				// XXX: Assumption: Only take the first column named "Action"
+				final int actionColumnIndex = tableModel.getColumnIndex( "Action" );
 
 				if( actionColumnIndex >= 0 ) {
-					final WebElement tbodyWebElement = tableWebElement.findElement( By.tagName("tbody") );
-
-					final List<WebElement> trWebElementList = tbodyWebElement.findElements( By.tagName("tr") );
-
-					final int trWebElementCount = trWebElementList.size();
-					for( int trWebElementIndex = 0; trWebElementIndex < trWebElementCount; trWebElementIndex++ ) {
-						final WebElement trWebElement = trWebElementList.get( trWebElementIndex );
-						final List<WebElement> tdWebElementList = trWebElement.findElements( By.tagName("td") );
-						// Find the n-th <td>
-						final List<WebElement> aWebElementList = tdWebElementList.get(actionColumnIndex).findElements( By.tagName("a") );
+					final int rowCount = tableModel.getRowCount();
+					for( int rowIndex = 0; rowIndex < rowCount; rowIndex++ ) {
 						// XXX: Assumption: There are only two anchor tags in this cell
-						if( aWebElementList.size() != 2 ) {
+						final int actionCellIndex = tableModel.getCellIndex( rowIndex, actionColumnIndex );
+						if( (actionCellIndex < 0)
+								|| (tableModel.getLinkCount(rowIndex, actionCellIndex) != 2) ) {
 							error( "Row %d does not have required 2 <a> links for action column %d",
-									trWebElementIndex, actionColumnIndex );
+									rowIndex, actionColumnIndex );
 						}
 					}
 				} else {
@@ -120,9 +72,6 @@ extends ChromeDriverTest
 				}
 			}
 		}
-
-		// All done.
-		m_webDriver.close();
 	}
 
 
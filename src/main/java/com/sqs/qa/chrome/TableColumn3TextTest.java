@@ -10,18 +10,14 @@ package com.sqs.qa.chrome;
 
 import java.util.List;
 
-import org.openqa.selenium.By;
-import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
-
 
 /**
- * <p>Test to validate that each of the cells in column 3 start with the
- * correct text.</p>
+ * <p>Test to validate that each of the cells in column 3 (the "Sit" column)
+ * start with the correct text.</p>
  *
  * @author Michael Gaugy (mgaugy@yahoo.com)
  */
+@ChromeTest( page = "challenging_dom", tags = "table", dependsOn = "large-10" )
 public class TableColumn3TextTest
 extends ChromeDriverTest
 {
@@ -29,23 +25,13 @@ extends ChromeDriverTest
 	// Constants
 	//
 
-//	private static final String TEXT_PREFIX = "Definiebas";
-	private static final String TEXT_PREFIX = "DefinieBas";
-
-
-	//
-	// Instance fields
-	//
-
 	/**
-	 * <p>The web driver to use.</p>
+	 * <p>The header of the column to check (the fourth column).</p>
 	 */
-	private final WebDriver m_webDriver;
+	private static final String COLUMN_NAME = "Sit";
 
-	/**
-	 * <p>The URL to be tested.</p>
-	 */
-	private final String m_url;
+//	private static final String TEXT_PREFIX = "Definiebas";
+	private static final String TEXT_PREFIX = "DefinieBas";
 
 
 	//
@@ -60,16 +46,7 @@ extends ChromeDriverTest
 	 * The URL to test.
 	 */
 	public TableColumn3TextTest( final String url ) {
-		super();
-
-		if( url == null ) {
-			throw( new NullPointerException("'url' is null!") );
-		} else if( url.length() == 0 ) {
-			throw( new IllegalArgumentException("'url' has zero length") );
-		}
-
-		m_webDriver = new ChromeDriver();
-		m_url = url;
+		super( url );
 	}
 
 
@@ -77,40 +54,46 @@ extends ChromeDriverTest
 	// Instance methods
 	//
 
+	/**
+	 * <p>The checks work on the page snapshot: at most one script to capture
+	 * it, if no other test has.</p>
+	 */
 	@Override
-	public void run() {
-		// Fetch the page
-		m_webDriver.get( m_url );
+	public int getCommandBudget() {
+		return( 5 );
+	}
 
+	@Override
+	protected void runTest( final PageFixture page ) {
 		// Find the "large-10" <div> containers.
-		final List<WebElement> large10WebElementList = m_webDriver.findElements( By.className("large-10") );
+		final List<DomNode> large10NodeList = page.getSnapshot().findElementsByClassName( "large-10" );
 
-		for( WebElement large10WebElement : large10WebElementList ) {
-			final List<WebElement> tableWebElementList = large10WebElement.findElements( By.tagName("table") );
-			if( tableWebElementList.isEmpty() == false ) {
+		for( DomNode large10Node : large10NodeList ) {
+			final List<DomNode> tableNodeList = large10Node.findElementsByTagName( "table" );
+			if( tableNodeList.isEmpty() == false ) {
 				// XXX: Assumption: Check only the first table
-				final WebElement tableWebElement = tableWebElementList.get( 0 );
-				final WebElement tbodyWebElement = tableWebElement.findElement( By.tagName("tbody") );
-
-				final List<WebElement> trWebElementList = tbodyWebElement.findElements( By.tagName("tr") );
-
-				final int trWebElementCount = trWebElementList.size();
-				for( int trWebElementIndex = 0; trWebElementIndex < trWebElementCount; trWebElementIndex++ ) {
-					final WebElement trWebElement = trWebElementList.get( trWebElementIndex );
-					final List<WebElement> tdWebElementList = trWebElement.findElements( By.tagName("td") );
-					// Find the n-th <td>
-					final WebElement tdWebElement = tdWebElementList.get(  3 );
-					final String tdWebElementText = tdWebElement.getText();
-					if( tdWebElementText.startsWith(TEXT_PREFIX) == false ) {
+				final TableModel tableModel = page.getTableModel( tableNodeList.get(0) );
+				final int columnIndex = tableModel.getColumnIndex( COLUMN_NAME );
+				if( columnIndex < 0 ) {
+					error( "Could not find a \"%s\" column header", COLUMN_NAME );
+					continue;
+				}
+
+				final int rowCount = tableModel.getRowCount();
+				for( int rowIndex = 0; rowIndex < rowCount; rowIndex++ ) {
+					final int cellIndex = tableModel.getCellIndex( rowIndex, columnIndex );
+					if( cellIndex < 0 ) {
+						error( "Row %d has no cell in column %d", rowIndex, columnIndex );
+						continue;
+					}
+					final String cellText = tableModel.getCellText( rowIndex, cellIndex );
+					if( cellText.startsWith(TEXT_PREFIX) == false ) {
 						error( "Row %d, cell %d does not start with the required prefix '%s': '%s'",
-								trWebElementIndex, 3, TEXT_PREFIX, tdWebElementText );
+								rowIndex, columnIndex, TEXT_PREFIX, cellText );
 					}
 				}
 			}
 		}
-
-		// All done.
-		m_webDriver.close();
 	}
 
 
@@ -0,0 +1,361 @@
+/*
+ * com/sqs/qa/chrome/TableModel.java
+ *
+ * TableModel object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * <p>The structure and content of an HTML <code>&lt;table&gt;</code>,
+ * extracted in a single pass.</p>
+ *
+ * <p>A model holds the header names and column spans of the (first) header
+ * row and, for each body row, the text, number of links and column span of
+ * each cell.  It is built from a {@link DomNode} of a {@link DomSnapshot}.</p>
+ *
+ * <p>Cells are addressed either by their index in the row or by column.
+ * Column indexes count the columns spanned by the preceding cells, so a
+ * header names the same column in every row, whatever the spans.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class TableModel
+{
+	//
+	// Instance fields
+	//
+
+	private final List<String> m_headerNames;
+
+	/**
+	 * <p>Column spans of the header cells.</p>
+	 */
+	private final int[] m_headerColspans;
+
+	/**
+	 * <p>Cell text, indexed by row then cell.</p>
+	 */
+	private final String[][] m_cellTexts;
+
+	/**
+	 * <p>Number of <code>&lt;a&gt;</code> elements, indexed by row then
+	 * cell.</p>
+	 */
+	private final int[][] m_linkCounts;
+
+	/**
+	 * <p>Column spans, indexed by row then cell.</p>
+	 */
+	private final int[][] m_colspans;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link TableModel}.</p>
+	 *
+	 * @param headerNames
+	 * The header names.
+	 * @param headerColspans
+	 * The column spans of the header cells.
+	 * @param cellTexts
+	 * The cell text, indexed by row then cell.
+	 * @param linkCounts
+	 * The number of links, indexed by row then cell.
+	 * @param colspans
+	 * The column spans, indexed by row then cell.
+	 */
+	public TableModel( final List<String> headerNames, final int[] headerColspans, final String[][] cellTexts,
+			final int[][] linkCounts, final int[][] colspans ) {
+		super();
+
+		if( headerNames.size() != headerColspans.length ) {
+			throw( new IllegalArgumentException("Header counts differ") );
+		} else if( (cellTexts.length != linkCounts.length)
+				|| (cellTexts.length != colspans.length) ) {
+			throw( new IllegalArgumentException("Row counts differ") );
+		}
+
+		m_headerNames = Collections.unmodifiableList( new ArrayList<String>(headerNames) );
+		m_headerColspans = headerColspans;
+		m_cellTexts = cellTexts;
+		m_linkCounts = linkCounts;
+		m_colspans = colspans;
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	public List<String> getHeaderNames() {
+		return( m_headerNames );
+	}
+
+	/**
+	 * <p>Find the first column with the specified header name.</p>
+	 *
+	 * @param headerName
+	 * The header name.
+	 * @return
+	 * Returns the index of the first column the header spans, or
+	 * <code>-1</code> if there is no such column.
+	 */
+	public int getColumnIndex( final String headerName ) {
+		final int headerIndex = m_headerNames.indexOf( headerName );
+		if( headerIndex < 0 ) {
+			return( -1 );
+		}
+		int result = 0;
+		for( int i = 0; i < headerIndex; i++ ) {
+			result += m_headerColspans[i];
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Get the number of columns spanned by the header row.</p>
+	 *
+	 * @return
+	 * Returns the column count.
+	 */
+	public int getColumnCount() {
+		int result = 0;
+		for( int headerColspan : m_headerColspans ) {
+			result += headerColspan;
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Get the number of columns spanned by a body row.</p>
+	 *
+	 * @param rowIndex
+	 * The row index.
+	 * @return
+	 * Returns the column count.
+	 */
+	public int getColumnCount( final int rowIndex ) {
+		int result = 0;
+		for( int colspan : m_colspans[rowIndex] ) {
+			result += colspan;
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Find the cell of a body row that spans the specified column.</p>
+	 *
+	 * @param rowIndex
+	 * The row index.
+	 * @param columnIndex
+	 * The column index.
+	 * @return
+	 * Returns the cell index, or <code>-1</code> if the row does not reach
+	 * the column.
+	 */
+	public int getCellIndex( final int rowIndex, final int columnIndex ) {
+		int columnEnd = 0;
+		for( int cellIndex = 0; cellIndex < m_colspans[rowIndex].length; cellIndex++ ) {
+			columnEnd += m_colspans[rowIndex][cellIndex];
+			if( columnIndex < columnEnd ) {
+				return( (columnIndex >= 0) ? cellIndex : -1 );
+			}
+		}
+		return( -1 );
+	}
+
+	/**
+	 * <p>Get the number of body rows.</p>
+	 *
+	 * @return
+	 * Returns the row count.
+	 */
+	public int getRowCount() {
+		return( m_cellTexts.length );
+	}
+
+	/**
+	 * <p>Get the number of cells in a body row.</p>
+	 *
+	 * @param rowIndex
+	 * The row index.
+	 * @return
+	 * Returns the cell count.
+	 */
+	public int getCellCount( final int rowIndex ) {
+		return( m_cellTexts[rowIndex].length );
+	}
+
+	public String getCellText( final int rowIndex, final int cellIndex ) {
+		return( m_cellTexts[rowIndex][cellIndex] );
+	}
+
+	/**
+	 * <p>Get the text of a cell by column header name.</p>
+	 *
+	 * @param rowIndex
+	 * The row index.
+	 * @param headerName
+	 * The header name.
+	 * @return
+	 * Returns the text.
+	 *
+	 * @throws IllegalArgumentException
+	 * This exception is thrown if there is no such column, or the row does
+	 * not reach it.
+	 */
+	public String getCellText( final int rowIndex, final String headerName ) {
+		final int cellIndex = getCellIndex( rowIndex, requireColumnIndex(headerName) );
+		if( cellIndex < 0 ) {
+			throw( new IllegalArgumentException("Row " + rowIndex + " has no cell for column: " + headerName) );
+		}
+		return( m_cellTexts[rowIndex][cellIndex] );
+	}
+
+	public int getLinkCount( final int rowIndex, final int cellIndex ) {
+		return( m_linkCounts[rowIndex][cellIndex] );
+	}
+
+	public int getColspan( final int rowIndex, final int cellIndex ) {
+		return( m_colspans[rowIndex][cellIndex] );
+	}
+
+	private int requireColumnIndex( final String headerName ) {
+		final int columnIndex = getColumnIndex( headerName );
+		if( columnIndex < 0 ) {
+			throw( new IllegalArgumentException("No such column: " + headerName) );
+		}
+		return( columnIndex );
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Build a model from a <code>&lt;table&gt;</code> node of a
+	 * snapshot.</p>
+	 *
+	 * @param tableNode
+	 * The table node.
+	 * @return
+	 * Returns the model.
+	 */
+	public static TableModel of( final DomNode tableNode ) {
+		if( tableNode == null ) {
+			throw( new NullPointerException("'tableNode' is null!") );
+		}
+
+		// XXX: Assumption: Only one header row
+		final List<String> headerNames = new ArrayList<String>();
+		final List<Integer> headerColspanList = new ArrayList<Integer>();
+		// Only child elements are walked, so that a nested table's rows do
+		// not become rows of this one
+		final List<DomNode> theadNodeList = getChildNodes( tableNode, "thead" );
+		if( theadNodeList.isEmpty() == false ) {
+			final List<DomNode> headerRowNodeList = getChildNodes( theadNodeList.get(0), "tr" );
+			if( headerRowNodeList.isEmpty() == false ) {
+				for( DomNode cellNode : getCellNodes(headerRowNodeList.get(0)) ) {
+					headerNames.add( cellNode.getText() );
+					headerColspanList.add( Integer.valueOf(parseColspan(cellNode.getAttribute("colspan"))) );
+				}
+			}
+		}
+
+		final List<DomNode> rowNodeList = new ArrayList<DomNode>();
+		for( DomNode tbodyNode : getChildNodes(tableNode, "tbody") ) {
+			rowNodeList.addAll( getChildNodes(tbodyNode, "tr") );
+		}
+
+		final int rowCount = rowNodeList.size();
+		final String[][] cellTexts = new String[rowCount][];
+		final int[][] linkCounts = new int[rowCount][];
+		final int[][] colspans = new int[rowCount][];
+		for( int rowIndex = 0; rowIndex < rowCount; rowIndex++ ) {
+			final List<DomNode> cellNodeList = getCellNodes( rowNodeList.get(rowIndex) );
+			final int cellCount = cellNodeList.size();
+			cellTexts[rowIndex] = new String[cellCount];
+			linkCounts[rowIndex] = new int[cellCount];
+			colspans[rowIndex] = new int[cellCount];
+			for( int cellIndex = 0; cellIndex < cellCount; cellIndex++ ) {
+				final DomNode cellNode = cellNodeList.get( cellIndex );
+				cellTexts[rowIndex][cellIndex] = cellNode.getText();
+				linkCounts[rowIndex][cellIndex] = cellNode.findElementsByTagName( "a" ).size();
+				colspans[rowIndex][cellIndex] = parseColspan( cellNode.getAttribute("colspan") );
+			}
+		}
+
+		final int[] headerColspans = new int[headerColspanList.size()];
+		for( int i = 0; i < headerColspans.length; i++ ) {
+			headerColspans[i] = headerColspanList.get( i ).intValue();
+		}
+
+		final TableModel result = new TableModel( headerNames, headerColspans, cellTexts, linkCounts, colspans );
+		return( result );
+	}
+
+	/**
+	 * <p>Get the children of a node having the specified tag name.</p>
+	 *
+	 * @param node
+	 * The node.
+	 * @param tagName
+	 * The lower-case tag name.
+	 * @return
+	 * Returns the matching children, in document order.
+	 */
+	private static List<DomNode> getChildNodes( final DomNode node, final String tagName ) {
+		final List<DomNode> result = new ArrayList<DomNode>();
+		for( DomNode childNode : node.getChildren() ) {
+			if( childNode.getTagName().equals(tagName) == true ) {
+				result.add( childNode );
+			}
+		}
+		return( result );
+	}
+
+	/**
+	 * <p>Get the <code>&lt;th&gt;</code> and <code>&lt;td&gt;</code> children
+	 * of a row.</p>
+	 *
+	 * @param rowNode
+	 * The row node.
+	 * @return
+	 * Returns the cell nodes.
+	 */
+	private static List<DomNode> getCellNodes( final DomNode rowNode ) {
+		final List<DomNode> result = new ArrayList<DomNode>();
+		for( DomNode childNode : rowNode.getChildren() ) {
+			final String tagName = childNode.getTagName();
+			if( (tagName.equals("td") == true)
+					|| (tagName.equals("th") == true) ) {
+				result.add( childNode );
+			}
+		}
+		return( result );
+	}
+
+	private static int parseColspan( final String colspanAttribute ) {
+		int result = 1;
+		if( colspanAttribute != null ) {
+			try {
+				result = Math.max( 1, Integer.parseInt(colspanAttribute.trim()) );
+			} catch( NumberFormatException numberFormatException ) {
+				// Browsers treat an invalid span as 1
+			}
+		}
+		return( result );
+	}
+}
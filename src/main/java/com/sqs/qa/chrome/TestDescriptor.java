@@ -0,0 +1,164 @@
+/*
+ * com/sqs/qa/chrome/TestDescriptor.java
+ *
+ * TestDescriptor object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * <p>An entry of the generated test index: the metadata of a
+ * {@link ChromeTest} class and a factory for its instances.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class TestDescriptor
+{
+	//
+	// Nested classes
+	//
+
+	/**
+	 * <p>Creates instances of a test.</p>
+	 */
+	public interface Factory
+	{
+		/**
+		 * <p>Create a test instance.</p>
+		 *
+		 * @param url
+		 * The URL to test.
+		 * @return
+		 * Returns the test.
+		 */
+		public abstract ChromeDriverTest create( String url );
+	}
+
+
+	//
+	// Instance fields
+	//
+
+	/**
+	 * <p>The test class name.</p>
+	 */
+	private final String m_name;
+
+	private final String m_page;
+
+	private final List<String> m_tagList;
+
+	private final boolean m_pageMutating;
+
+	private final long m_expectedMillis;
+
+	private final Factory m_factory;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link TestDescriptor}.</p>
+	 *
+	 * @param name
+	 * The test class name.
+	 * @param page
+	 * The name of the page the test checks, or the empty string.
+	 * @param tags
+	 * The tags of the test.
+	 * @param pageMutating
+	 * Whether the test modifies the page.
+	 * @param expectedMillis
+	 * The expected duration of the test, or 0 if unknown.
+	 * @param factory
+	 * The factory for test instances.
+	 */
+	public TestDescriptor( final String name, final String page, final String[] tags, final boolean pageMutating,
+			final long expectedMillis, final Factory factory ) {
+		super();
+
+		if( name == null ) {
+			throw( new NullPointerException("'name' is null!") );
+		} else if( factory == null ) {
+			throw( new NullPointerException("'factory' is null!") );
+		}
+
+		m_name = name;
+		m_page = page;
+		m_tagList = Collections.unmodifiableList( Arrays.asList(tags.clone()) );
+		m_pageMutating = pageMutating;
+		m_expectedMillis = expectedMillis;
+		m_factory = factory;
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	public String getName() {
+		return( m_name );
+	}
+
+	public String getPage() {
+		return( m_page );
+	}
+
+	public List<String> getTags() {
+		return( m_tagList );
+	}
+
+	public boolean isPageMutating() {
+		return( m_pageMutating );
+	}
+
+	public long getExpectedMillis() {
+		return( m_expectedMillis );
+	}
+
+	/**
+	 * <p>Determine whether the test is selected by any of the specified
+	 * tags.  A page name also selects the tests of that page.</p>
+	 *
+	 * @param tags
+	 * The tags.
+	 * @return
+	 * Returns <code>true</code> if the test is selected.
+	 */
+	public boolean matches( final Collection<String> tags ) {
+		for( String tag : tags ) {
+			if( (m_tagList.contains(tag) == true)
+					|| (tag.equals(m_page) == true) ) {
+				return( true );
+			}
+		}
+		return( false );
+	}
+
+	/**
+	 * <p>Create an instance of the test.</p>
+	 *
+	 * @param url
+	 * The URL to test.
+	 * @return
+	 * Returns the test.
+	 */
+	public ChromeDriverTest create( final String url ) {
+		return( m_factory.create(url) );
+	}
+
+	@Override
+	public String toString() {
+		return( m_name );
+	}
+}
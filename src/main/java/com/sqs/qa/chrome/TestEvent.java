@@ -0,0 +1,246 @@
+/*
+ * com/sqs/qa/chrome/TestEvent.java
+ *
+ * TestEvent object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+
+/**
+ * <p>A structured test result event, as streamed to a
+ * {@link TestEventSink}.</p>
+ *
+ * <p>Events of a test are delivered in the order
+ * <code>TEST_STARTED</code>, any number of <code>CHECK_FAILED</code>,
+ * <code>TEST_ERROR</code> and <code>ARTIFACT</code> events, then
+ * <code>TEST_FINISHED</code>.  All tests are enclosed by
+ * <code>SUITE_STARTED</code> and <code>SUITE_FINISHED</code>.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class TestEvent
+{
+	//
+	// Nested classes
+	//
+
+	public enum Type
+	{
+		SUITE_STARTED,
+		TEST_STARTED,
+		CHECK_FAILED,
+		TEST_ERROR,
+		ARTIFACT,
+		TEST_FINISHED,
+		SUITE_FINISHED;
+	}
+
+
+	//
+	// Instance fields
+	//
+
+	private final Type m_type;
+
+	/**
+	 * <p>The wall-clock time of the event, in milliseconds since the
+	 * epoch.</p>
+	 */
+	private final long m_timestampMillis;
+
+	/**
+	 * <p>The test class name, or the suite name for suite events.</p>
+	 */
+	private final String m_name;
+
+	/**
+	 * <p>The failure message or artifact path, or <code>null</code>.</p>
+	 */
+	private final String m_message;
+
+	/**
+	 * <p>The source location of a failed check, the stack trace of an error,
+	 * or <code>null</code>.</p>
+	 */
+	private final String m_detail;
+
+	/**
+	 * <p>The duration of a finished test or suite, in milliseconds.</p>
+	 */
+	private final long m_durationMillis;
+
+	/**
+	 * <p>The number of tests in a finished suite.</p>
+	 */
+	private final int m_testCount;
+
+	/**
+	 * <p>The number of errors in a finished test or suite.</p>
+	 */
+	private final int m_errorCount;
+
+	/**
+	 * <p>The phase timings of a finished test, or <code>null</code>.</p>
+	 */
+	private final PhaseTimings m_phaseTimings;
+
+	/**
+	 * <p>Whether a finished test's pass was reused from the
+	 * {@link ResultCache} rather than its checks executed.</p>
+	 */
+	private final boolean m_reused;
+
+
+	//
+	// Constructors
+	//
+
+	private TestEvent( final Type type, final String name, final String message, final String detail,
+			final long durationMillis, final int testCount, final int errorCount, final PhaseTimings phaseTimings ) {
+		this( type, System.currentTimeMillis(), name, message, detail, durationMillis, testCount, errorCount,
+				phaseTimings, false );
+	}
+
+	private TestEvent( final Type type, final long timestampMillis, final String name, final String message,
+			final String detail, final long durationMillis, final int testCount, final int errorCount,
+			final PhaseTimings phaseTimings, final boolean reused ) {
+		super();
+		m_type = type;
+		m_timestampMillis = timestampMillis;
+		m_name = name;
+		m_message = message;
+		m_detail = detail;
+		m_durationMillis = durationMillis;
+		m_testCount = testCount;
+		m_errorCount = errorCount;
+		m_phaseTimings = phaseTimings;
+		m_reused = reused;
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	public Type getType() {
+		return( m_type );
+	}
+
+	public long getTimestampMillis() {
+		return( m_timestampMillis );
+	}
+
+	public String getName() {
+		return( m_name );
+	}
+
+	public String getMessage() {
+		return( m_message );
+	}
+
+	public String getDetail() {
+		return( m_detail );
+	}
+
+	public long getDurationMillis() {
+		return( m_durationMillis );
+	}
+
+	public int getTestCount() {
+		return( m_testCount );
+	}
+
+	public int getErrorCount() {
+		return( m_errorCount );
+	}
+
+	public PhaseTimings getPhaseTimings() {
+		return( m_phaseTimings );
+	}
+
+	public boolean isReused() {
+		return( m_reused );
+	}
+
+
+	//
+	// Class methods
+	//
+
+	public static TestEvent suiteStarted( final String suiteName ) {
+		return( new TestEvent(Type.SUITE_STARTED, suiteName, null, null, 0, 0, 0, null) );
+	}
+
+	public static TestEvent testStarted( final String testName ) {
+		return( new TestEvent(Type.TEST_STARTED, testName, null, null, 0, 0, 0, null) );
+	}
+
+	/**
+	 * <p>Create an event for a failed check.</p>
+	 *
+	 * @param testName
+	 * The test class name.
+	 * @param message
+	 * The formatted failure message.
+	 * @param location
+	 * The source location of the check, such as
+	 * <code>com.sqs.qa.chrome.TableColumnCountTest.runTest(TableColumnCountTest.java:72)</code>,
+	 * or <code>null</code> if unknown.
+	 * @return
+	 * Returns the event.
+	 */
+	public static TestEvent checkFailed( final String testName, final String message, final String location ) {
+		return( new TestEvent(Type.CHECK_FAILED, testName, message, location, 0, 0, 0, null) );
+	}
+
+	public static TestEvent testError( final String testName, final String message, final String stackTrace ) {
+		return( new TestEvent(Type.TEST_ERROR, testName, message, stackTrace, 0, 0, 0, null) );
+	}
+
+	public static TestEvent artifact( final String testName, final String path ) {
+		return( new TestEvent(Type.ARTIFACT, testName, path, null, 0, 0, 0, null) );
+	}
+
+	public static TestEvent testFinished( final String testName, final long durationMillis, final int errorCount,
+			final PhaseTimings phaseTimings ) {
+		return( new TestEvent(Type.TEST_FINISHED, testName, null, null, durationMillis, 1, errorCount, phaseTimings) );
+	}
+
+	/**
+	 * <p>Create an event for a test whose pass was reused from the
+	 * {@link ResultCache}.  Its duration is not that of the checks.</p>
+	 *
+	 * @return
+	 * Returns the event.
+	 */
+	public static TestEvent testReused( final String testName, final long durationMillis,
+			final PhaseTimings phaseTimings ) {
+		return( new TestEvent(Type.TEST_FINISHED, System.currentTimeMillis(), testName, null, null, durationMillis,
+				1, 0, phaseTimings, true) );
+	}
+
+	public static TestEvent suiteFinished( final String suiteName, final long durationMillis,
+			final int testCount, final int errorCount ) {
+		return( new TestEvent(Type.SUITE_FINISHED, suiteName, null, null, durationMillis, testCount, errorCount, null) );
+	}
+
+	/**
+	 * <p>Recreate an event that was recorded elsewhere, such as one read
+	 * back from a JSON Lines stream.</p>
+	 *
+	 * @return
+	 * Returns the event.
+	 */
+	public static TestEvent of( final Type type, final long timestampMillis, final String name,
+			final String message, final String detail, final long durationMillis, final int testCount,
+			final int errorCount, final PhaseTimings phaseTimings, final boolean reused ) {
+		if( type == null ) {
+			throw( new NullPointerException("'type' is null!") );
+		}
+		return( new TestEvent(type, timestampMillis, name, message, detail, durationMillis, testCount, errorCount,
+				phaseTimings, reused) );
+	}
+}
@@ -0,0 +1,28 @@
+/*
+ * com/sqs/qa/chrome/TestEventSink.java
+ *
+ * TestEventSink object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.io.IOException;
+
+
+/**
+ * <p>Receives {@link TestEvent}s as they are produced.  Implementations
+ * write each event (or each finished test) out immediately rather than
+ * accumulating the suite in memory.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public interface TestEventSink
+{
+	public abstract void accept( final TestEvent event )
+	throws IOException;
+
+	public abstract void close()
+	throws IOException;
+}
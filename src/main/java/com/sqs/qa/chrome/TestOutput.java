@@ -0,0 +1,289 @@
+/*
+ * com/sqs/qa/chrome/TestOutput.java
+ *
+ * TestOutput object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * <p>Message sink for a single test.</p>
+ *
+ * <p>Messages are buffered, unformatted, rather than printed as they are
+ * issued so that the output of tests executing in parallel is not
+ * interleaved.  The buffered messages are published as one block to an
+ * {@link AsyncLogWriter} once the test completes.  Messages below the
+ * minimum level are discarded before anything is recorded.</p>
+ *
+ * <p>The test's {@link TestEvent}s are buffered in the same way.  The
+ * source location of a failed check is only determined when an error is
+ * issued, since it requires a stack trace.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public final class TestOutput
+implements ErrorCallback
+{
+	//
+	// Instance fields
+	//
+
+	/**
+	 * <p>The buffered messages.</p>
+	 */
+	private final List<LogMessage> m_messages;
+
+	/**
+	 * <p>The buffered events.</p>
+	 */
+	private final List<TestEvent> m_events;
+
+	/**
+	 * <p>The test class name.</p>
+	 */
+	private final String m_testName;
+
+	private long m_startNanos;
+
+	private final LogLevel m_minimumLevel;
+
+	private int m_errorCount;
+
+
+	//
+	// Constructors
+	//
+
+	/**
+	 * <p>Initialize a new {@link TestOutput}.</p>
+	 *
+	 * @param testName
+	 * The test class name.
+	 * @param minimumLevel
+	 * The lowest level of messages that are recorded.
+	 */
+	public TestOutput( final String testName, final LogLevel minimumLevel ) {
+		super();
+
+		if( testName == null ) {
+			throw( new NullPointerException("'testName' is null!") );
+		} else if( minimumLevel == null ) {
+			throw( new NullPointerException("'minimumLevel' is null!") );
+		}
+
+		m_messages = new ArrayList<LogMessage>();
+		m_events = new ArrayList<TestEvent>();
+		m_testName = testName;
+		m_minimumLevel = minimumLevel;
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	/**
+	 * <p>Determine whether messages of the specified level are
+	 * recorded.</p>
+	 *
+	 * @param level
+	 * The level.
+	 * @return
+	 * Returns <code>true</code> if the level is enabled.
+	 */
+	@Override
+	public final boolean isEnabled( final LogLevel level ) {
+		return( level.compareTo(m_minimumLevel) >= 0 );
+	}
+
+	/**
+	 * <p>Issue a debug message.</p>
+	 *
+	 * @param source
+	 * The issuing class name.
+	 * @param format
+	 * The format string.
+	 * @param args
+	 * Arguments
+	 */
+	@Override
+	public final void debug( final String source, final String format, final Object... args ) {
+		append( LogLevel.DEBUG, source, format, args );
+	}
+
+	/**
+	 * <p>Issue an informative message.</p>
+	 *
+	 * @param source
+	 * The issuing class name.
+	 * @param format
+	 * The format string.
+	 * @param args
+	 * Arguments
+	 */
+	@Override
+	public final void info( final String source, final String format, final Object... args ) {
+		append( LogLevel.INFO, source, format, args );
+	}
+
+	/**
+	 * <p>Issue a warning message.</p>
+	 *
+	 * @param source
+	 * The issuing class name.
+	 * @param format
+	 * The format string.
+	 * @param args
+	 * Arguments
+	 */
+	@Override
+	public final void warning( final String source, final String format, final Object... args ) {
+		append( LogLevel.WARNING, source, format, args );
+	}
+
+	/**
+	 * <p>Issue an error message.</p>
+	 *
+	 * @param source
+	 * The issuing class name.
+	 * @param format
+	 * The format string.
+	 * @param args
+	 * Arguments
+	 */
+	@Override
+	public final void error( final String source, final String format, final Object... args ) {
+		append( LogLevel.ERROR, source, format, args );
+		m_errorCount++;
+		m_events.add( TestEvent.checkFailed(m_testName, String.format(format, args), getLocation(source)) );
+	}
+
+	@Override
+	public final void artifact( final String source, final File file ) {
+		m_events.add( TestEvent.artifact(m_testName, file.getAbsolutePath()) );
+	}
+
+	/**
+	 * <p>Record the start of the test.</p>
+	 */
+	public final void started() {
+		m_startNanos = System.nanoTime();
+		m_events.add( TestEvent.testStarted(m_testName) );
+	}
+
+	/**
+	 * <p>Record the end of the test.</p>
+	 *
+	 * @param phaseTimings
+	 * The timings of the test's phases, or <code>null</code>.
+	 * @param reused
+	 * Specifies whether the test's pass was reused from the
+	 * {@link ResultCache} rather than its checks executed.
+	 */
+	public final void finished( final PhaseTimings phaseTimings, final boolean reused ) {
+		final long durationMillis = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - m_startNanos );
+		m_events.add( (reused == true)
+				? TestEvent.testReused( m_testName, durationMillis, phaseTimings )
+				: TestEvent.testFinished( m_testName, durationMillis, m_errorCount, phaseTimings ) );
+	}
+
+	/**
+	 * <p>Record an exception that terminated the test.</p>
+	 *
+	 * @param throwable
+	 * The exception.
+	 */
+	public final void exception( final Throwable throwable ) {
+		final StringWriter stringWriter = new StringWriter();
+		throwable.printStackTrace( new PrintWriter(stringWriter) );
+		m_messages.add( LogMessage.line(stringWriter.toString()) );
+		// Counted as an error, so that a test that did not complete is not a pass
+		m_errorCount++;
+		m_events.add( TestEvent.testError(m_testName, throwable.toString(), stringWriter.toString()) );
+	}
+
+	/**
+	 * <p>Get the number of errors issued, including an exception that
+	 * terminated the test.</p>
+	 *
+	 * @return
+	 * Returns the error count.
+	 */
+	public final int getErrorCount() {
+		return( m_errorCount );
+	}
+
+	/**
+	 * <p>Publish all buffered messages, in order.</p>
+	 *
+	 * @param logWriter
+	 * The writer to publish to.
+	 */
+	public final void publishTo( final AsyncLogWriter logWriter ) {
+		for( LogMessage logMessage : m_messages ) {
+			logWriter.publish( logMessage );
+		}
+	}
+
+	/**
+	 * <p>Get the buffered events, in order.</p>
+	 *
+	 * @return
+	 * Returns the events.
+	 */
+	public final List<TestEvent> getEvents() {
+		return( m_events );
+	}
+
+	/**
+	 * <p>Buffer a message if its level is enabled.</p>
+	 *
+	 * @param level
+	 * The level.
+	 * @param source
+	 * The issuing class name.
+	 * @param format
+	 * The format string.
+	 * @param args
+	 * Arguments
+	 */
+	private void append( final LogLevel level, final String source, final String format, final Object[] args ) {
+		if( isEnabled(level) == true ) {
+			m_messages.add( new LogMessage(level, source, format, args) );
+		}
+	}
+
+
+	//
+	// Class methods
+	//
+
+	/**
+	 * <p>Find the innermost frame of the issuing class in the current call
+	 * stack.</p>
+	 *
+	 * @param source
+	 * The issuing class name.
+	 * @return
+	 * Returns the location, or <code>null</code> if the class is not on the
+	 * stack.
+	 */
+	private static String getLocation( final String source ) {
+		for( StackTraceElement stackTraceElement : new Throwable().getStackTrace() ) {
+			if( source.equals(stackTraceElement.getClassName()) == true ) {
+				return( stackTraceElement.toString() );
+			}
+		}
+		return( null );
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * com/sqs/qa/chrome/TestPhase.java
+ *
+ * TestPhase object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome;
+
+
+/**
+ * <p>The phases of a test execution, in order, as timed by
+ * {@link PhaseTimings}.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+public enum TestPhase
+{
+	/**
+	 * <p>Borrowing a web driver from the pool, including starting a browser
+	 * if none is idle.</p>
+	 */
+	ACQUIRE( "acquire" ),
+
+	/**
+	 * <p>Loading the page, unless it is already loaded.</p>
+	 */
+	NAVIGATE( "navigate" ),
+
+	/**
+	 * <p>Executing the test's checks.</p>
+	 */
+	CHECKS( "checks" ),
+
+	/**
+	 * <p>Returning the web driver to the pool, including resetting it if the
+	 * test modified the page.</p>
+	 */
+	TEARDOWN( "teardown" );
+
+
+	//
+	// Instance fields
+	//
+
+	private final String m_label;
+
+
+	//
+	// Constructors
+	//
+
+	private TestPhase( final String label ) {
+		m_label = label;
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	public String getLabel() {
+		return( m_label );
+	}
+}
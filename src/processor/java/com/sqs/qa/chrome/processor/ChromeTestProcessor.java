@@ -0,0 +1,277 @@
+/*
+ * com/sqs/qa/chrome/processor/ChromeTestProcessor.java
+ *
+ * ChromeTestProcessor object
+ *
+ * Copyright (c) 2017 Michael Gaugy.  All rights reserved.
+ */
+
+package com.sqs.qa.chrome.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+
+/**
+ * <p>Annotation processor generating the test index from the classes
+ * annotated with <code>com.sqs.qa.chrome.ChromeTest</code>.</p>
+ *
+ * <p>The generated <code>com.sqs.qa.chrome.ChromeTestIndex</code> lists a
+ * <code>TestDescriptor</code> per test, in class name order, holding the
+ * annotation's metadata and a factory calling the test's constructor
+ * directly.  Classes that cannot be instantiated that way are reported as
+ * compilation errors.  The processor is compiled separately from the
+ * harness, so it refers to the harness's types by name only.</p>
+ *
+ * @author Michael Gaugy (mgaugy@yahoo.com)
+ */
+@SupportedAnnotationTypes( ChromeTestProcessor.ANNOTATION_NAME )
+public final class ChromeTestProcessor
+extends AbstractProcessor
+{
+	//
+	// Constants
+	//
+
+	static final String ANNOTATION_NAME = "com.sqs.qa.chrome.ChromeTest";
+
+	private static final String INDEX_PACKAGE_NAME = "com.sqs.qa.chrome";
+
+	private static final String INDEX_CLASS_NAME = "ChromeTestIndex";
+
+	private static final String BASE_CLASS_NAME = "com.sqs.qa.chrome.ChromeDriverTest";
+
+
+	//
+	// Instance fields
+	//
+
+	/**
+	 * <p>Generated index entries by test class name.</p>
+	 */
+	private final Map<String, String> m_entries;
+
+	private boolean m_indexWritten;
+
+
+	//
+	// Constructors
+	//
+
+	public ChromeTestProcessor() {
+		super();
+		m_entries = new TreeMap<String, String>();
+	}
+
+
+	//
+	// Instance methods
+	//
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return( SourceVersion.latestSupported() );
+	}
+
+	@Override
+	public boolean process( final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnvironment ) {
+		for( TypeElement annotation : annotations ) {
+			for( Element element : roundEnvironment.getElementsAnnotatedWith(annotation) ) {
+				if( checkTestClass(element) == true ) {
+					final TypeElement typeElement = (TypeElement) element;
+					m_entries.put( typeElement.getQualifiedName().toString(),
+							createEntry(typeElement, getAnnotationMirror(typeElement, annotation)) );
+				}
+			}
+		}
+
+		// All tests are found in the first round; the index itself is not
+		// annotated, so it is written as soon as there is something to list
+		if( (m_indexWritten == false)
+				&& (m_entries.isEmpty() == false)
+				&& (roundEnvironment.errorRaised() == false) ) {
+			writeIndex();
+			m_indexWritten = true;
+		}
+		return( true );
+	}
+
+	/**
+	 * <p>Check that an annotated element is a test class that can be
+	 * instantiated by the index, reporting an error if not.</p>
+	 */
+	private boolean checkTestClass( final Element element ) {
+		if( (element.getKind() != ElementKind.CLASS)
+				|| (element.getModifiers().contains(Modifier.PUBLIC) == false)
+				|| (element.getModifiers().contains(Modifier.ABSTRACT) == true)
+				|| (element.getEnclosingElement().getKind() != ElementKind.PACKAGE) ) {
+			error( element, "@ChromeTest requires a public, concrete, top-level class" );
+			return( false );
+		}
+
+		boolean isTest = false;
+		for( TypeElement current = (TypeElement) element; current != null; ) {
+			if( current.getQualifiedName().contentEquals(BASE_CLASS_NAME) == true ) {
+				isTest = true;
+				break;
+			}
+			final Element superclass = processingEnv.getTypeUtils().asElement( current.getSuperclass() );
+			current = (superclass instanceof TypeElement) ? (TypeElement) superclass : null;
+		}
+		if( isTest == false ) {
+			error( element, "@ChromeTest requires a subclass of " + BASE_CLASS_NAME );
+			return( false );
+		}
+
+		for( ExecutableElement constructor : ElementFilter.constructorsIn(element.getEnclosedElements()) ) {
+			final List<? extends VariableElement> parameters = constructor.getParameters();
+			if( (constructor.getModifiers().contains(Modifier.PUBLIC) == true)
+					&& (parameters.size() == 1)
+					&& (parameters.get(0).asType().toString().equals("java.lang.String") == true) ) {
+				return( true );
+			}
+		}
+		error( element, "@ChromeTest requires a public constructor taking the URL as a String" );
+		return( false );
+	}
+
+	/**
+	 * <p>Create the source of the index entry of a test.</p>
+	 */
+	private String createEntry( final TypeElement typeElement, final AnnotationMirror annotationMirror ) {
+		String page = "";
+		final StringBuilder tags = new StringBuilder();
+		boolean mutatesPage = false;
+		long expectedMillis = 0;
+		for( Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+				: processingEnv.getElementUtils().getElementValuesWithDefaults(annotationMirror).entrySet() ) {
+			final String name = entry.getKey().getSimpleName().toString();
+			final Object value = entry.getValue().getValue();
+			if( name.equals("page") == true ) {
+				page = (String) value;
+			} else if( name.equals("tags") == true ) {
+				for( Object tag : (List<?>) value ) {
+					if( tags.length() > 0 ) {
+						tags.append( ", " );
+					}
+					tags.append( quote((String) ((AnnotationValue) tag).getValue()) );
+				}
+			} else if( name.equals("mutatesPage") == true ) {
+				mutatesPage = ((Boolean) value).booleanValue();
+			} else if( name.equals("expectedMillis") == true ) {
+				expectedMillis = ((Number) value).longValue();
+			}
+		}
+
+		final String className = typeElement.getQualifiedName().toString();
+		final StringBuilder sb = new StringBuilder();
+		sb.append( "\t\tlist.add( new TestDescriptor(" ).append( quote(className) ).append( ", " )
+				.append( quote(page) ).append( ",\n" );
+		sb.append( "\t\t\t\tnew String[] {" ).append( tags ).append( "}, " )
+				.append( mutatesPage ).append( ", " ).append( expectedMillis ).append( "L,\n" );
+		sb.append( "\t\t\t\tnew TestDescriptor.Factory() {\n" );
+		sb.append( "\t\t\t\t\t@Override\n" );
+		sb.append( "\t\t\t\t\tpublic ChromeDriverTest create( final String url ) {\n" );
+		sb.append( "\t\t\t\t\t\treturn( new " ).append( className ).append( "(url) );\n" );
+		sb.append( "\t\t\t\t\t}\n" );
+		sb.append( "\t\t\t\t}) );\n" );
+		return( sb.toString() );
+	}
+
+	private void writeIndex() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append( "/*\n * Generated by " ).append( ChromeTestProcessor.class.getName() )
+				.append( ".  Do not edit.\n */\n\n" );
+		sb.append( "package " ).append( INDEX_PACKAGE_NAME ).append( ";\n\n" );
+		sb.append( "import java.util.ArrayList;\n" );
+		sb.append( "import java.util.Collections;\n" );
+		sb.append( "import java.util.List;\n\n\n" );
+		sb.append( "/**\n * <p>Index of the {@link ChromeTest} classes.</p>\n */\n" );
+		sb.append( "public final class " ).append( INDEX_CLASS_NAME ).append( "\n{\n" );
+		sb.append( "\tprivate static final List<TestDescriptor> TESTS;\n\n" );
+		sb.append( "\tstatic {\n" );
+		sb.append( "\t\tfinal List<TestDescriptor> list = new ArrayList<TestDescriptor>();\n" );
+		for( String entry : m_entries.values() ) {
+			sb.append( entry );
+		}
+		sb.append( "\t\tTESTS = Collections.unmodifiableList( list );\n" );
+		sb.append( "\t}\n\n" );
+		sb.append( "\tprivate " ).append( INDEX_CLASS_NAME ).append( "() {\n\t\tsuper();\n\t}\n\n" );
+		sb.append( "\t/**\n\t * <p>Get the tests, in class name order.</p>\n\t */\n" );
+		sb.append( "\tpublic static List<TestDescriptor> getTests() {\n" );
+		sb.append( "\t\treturn( TESTS );\n" );
+		sb.append( "\t}\n" );
+		sb.append( "}\n" );
+
+		try {
+			final Writer writer = processingEnv.getFiler().createSourceFile(
+					INDEX_PACKAGE_NAME + "." + INDEX_CLASS_NAME ).openWriter();
+			try {
+				writer.write( sb.toString() );
+			} finally {
+				writer.close();
+			}
+		} catch( IOException ioException ) {
+			processingEnv.getMessager().printMessage( Diagnostic.Kind.ERROR,
+					"Cannot write " + INDEX_CLASS_NAME + ": " + ioException.getMessage() );
+		}
+	}
+
+	private void error( final Element element, final String message ) {
+		processingEnv.getMessager().printMessage( Diagnostic.Kind.ERROR, message, element );
+	}
+
+
+	//
+	// Class methods
+	//
+
+	private static AnnotationMirror getAnnotationMirror( final Element element, final TypeElement annotation ) {
+		for( AnnotationMirror annotationMirror : element.getAnnotationMirrors() ) {
+			if( annotationMirror.getAnnotationType().asElement().equals(annotation) == true ) {
+				return( annotationMirror );
+			}
+		}
+		throw( new IllegalStateException("Annotation not found on " + element) );
+	}
+
+	/**
+	 * <p>Quote a string as a Java literal.</p>
+	 */
+	private static String quote( final String text ) {
+		final StringBuilder sb = new StringBuilder( "\"" );
+		for( int i = 0; i < text.length(); i++ ) {
+			final char c = text.charAt( i );
+			if( (c == '"') || (c == '\\') ) {
+				sb.append( '\\' ).append( c );
+			} else if( c < 0x20 ) {
+				// Octal; a Unicode escape would be translated before lexing
+				sb.append( String.format("\\%03o", (int) c) );
+			} else if( c > 0x7e ) {
+				sb.append( String.format("\\u%04x", (int) c) );
+			} else {
+				sb.append( c );
+			}
+		}
+		return( sb.append('"').toString() );
+	}
+}